@@ -0,0 +1,92 @@
+package logic;
+
+import java.util.SplittableRandom;
+
+/**
+ * This class compares the scalar and the vector PositionKernel on random flights, and
+ * checks that they agree.
+ *
+ * <p> Each kernel is warmed up before it is measured, so the JIT has compiled it, and the
+ * best of several rounds is reported. The positions are summed after every round, so the
+ * work can't be optimized away.
+ *
+ * <p> Usage: {@code java --add-modules jdk.incubator.vector logic.KernelBenchmark [flights] [rounds]}
+ */
+public class KernelBenchmark {
+
+	private final int size;
+	private final float[] x0, y0, dx, dy;
+	private final float[] x, y;
+	private double checksum;
+
+	/**
+	 * @param size Number of flights in the air
+	 * @param seed Seed of the random positions
+	 */
+	KernelBenchmark(int size, long seed) {
+		this.size = size;
+		SplittableRandom random = new SplittableRandom(seed);
+		x0 = new float[size];
+		y0 = new float[size];
+		dx = new float[size];
+		dy = new float[size];
+		for (int i = 0; i < size; i++) {
+			x0[i] = (float) random.nextDouble(-180, 180);
+			y0[i] = (float) random.nextDouble(-90, 90);
+			dx[i] = (float) random.nextDouble(-2, 2);
+			dy[i] = (float) random.nextDouble(-1, 1);
+		}
+		x = new float[size];
+		y = new float[size];
+	}
+
+	/**
+	 * @return the best time of a round in ns
+	 */
+	long measure(PositionKernel kernel, int rounds) {
+		long best = Long.MAX_VALUE;
+		for (int r = 0; r < rounds; r++) {
+			long begin = System.nanoTime();
+			kernel.positions(x0, y0, dx, dy, 0, size, r % 10 * 0.1f, x, y);
+			best = Math.min(best, System.nanoTime() - begin);
+			checksum += x[r % size] + y[size - 1 - r % size];
+		}
+		return best;
+	}
+
+	/**
+	 * @return the largest difference between the positions of the two kernels, in degrees
+	 */
+	float compare(PositionKernel a, PositionKernel b) {
+		float[] ax = new float[size], ay = new float[size];
+		a.positions(x0, y0, dx, dy, 0, size, 0.7f, ax, ay);
+		b.positions(x0, y0, dx, dy, 0, size, 0.7f, x, y);
+		float max = 0;
+		for (int i = 0; i < size; i++) {
+			max = Math.max(max, Math.max(Math.abs(ax[i] - x[i]), Math.abs(ay[i] - y[i])));
+		}
+		return max;
+	}
+
+	private void report(String name, PositionKernel kernel, int rounds) {
+		measure(kernel, rounds);
+		long ns = measure(kernel, rounds);
+		System.out.println(String.format("%-8s %8.2f ms  %6.2f ns/flight  %8.1f M flights/s",
+				name, ns / 1e6, (double) ns / size, size * 1e3 / ns));
+	}
+
+	public static void main(String[] args) {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+		KernelBenchmark benchmark = new KernelBenchmark(size, 0);
+		PositionKernel scalar = new ScalarPositionKernel();
+		PositionKernel vector = new VectorPositionKernel();
+
+		System.out.println(String.format("%d flights, %d rounds, largest difference %.5f degrees",
+				size, rounds, benchmark.compare(scalar, vector)));
+		benchmark.report("scalar", scalar, rounds);
+		benchmark.report("vector", vector, rounds);
+		System.out.println("checksum " + benchmark.checksum);
+	}
+
+}
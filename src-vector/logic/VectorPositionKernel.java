@@ -0,0 +1,38 @@
+package logic;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * This class computes the positions of as many flights at once as the CPU's vector
+ * registers hold, with the incubating Vector API.
+ *
+ * <p> It needs {@code --add-modules jdk.incubator.vector} to compile and to run, and is
+ * loaded by PositionKernel.load when it can be. The flights that don't fill a whole
+ * vector at the end are left to the scalar kernel.
+ */
+class VectorPositionKernel implements PositionKernel {
+
+	// Loaded when the class is initialized, so a missing module fails in load
+	private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+	private final ScalarPositionKernel tail = new ScalarPositionKernel();
+
+	@Override
+	public void positions(float[] x0, float[] y0, float[] dx, float[] dy, int from, int to, float f, float[] x, float[] y) {
+		FloatVector part = FloatVector.broadcast(SPECIES, f);
+		int i = from;
+		int bound = from + SPECIES.loopBound(to - from);
+		for (; i < bound; i += SPECIES.length()) {
+			FloatVector lon = FloatVector.fromArray(SPECIES, dx, i).fma(part, FloatVector.fromArray(SPECIES, x0, i));
+			// Paths crossing the antimeridian
+			lon = lon.sub(360f, lon.compare(VectorOperators.GT, 180f))
+					.add(360f, lon.compare(VectorOperators.LT, -180f));
+			lon.intoArray(x, i);
+			FloatVector.fromArray(SPECIES, dy, i).fma(part, FloatVector.fromArray(SPECIES, y0, i)).intoArray(y, i);
+		}
+		tail.positions(x0, y0, dx, dy, i, to, f, x, y);
+	}
+
+}
@@ -0,0 +1,211 @@
+package data;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import data.model.Airport;
+import data.model.Flight;
+
+/**
+ * This class stores flights column by column in primitive arrays, so the simulation can
+ * go through millions of flights without chasing object references. A flight is identified
+ * by its row, and its airports by their index in the table's airport array.
+ *
+ * <p> Flight objects are only views of rows for the GUI: the ones the table was built from
+ * are kept with their rows, and the others are created when they are first asked for.
+ *
+ * <p> The table is not thread-safe, it belongs to the simulation that created it.
+ */
+public class FlightTable {
+
+	private Airport[] airports;
+	private int airportCount;
+	private float[] airportX, airportY;
+	private Map<Airport, Integer> airportIndex = new IdentityHashMap<>();
+
+	private int size;
+	private int[] startAirport, endAirport;
+	// Absolute simulation instants in minutes
+	private long[] startTime;
+	private long[] departureTime, landingTime;
+	private int[] duration;
+	private Flight[] views;
+
+	public FlightTable(int airportCapacity, int flightCapacity) {
+		airportCapacity = Math.max(airportCapacity, 16);
+		flightCapacity = Math.max(flightCapacity, 16);
+		airports = new Airport[airportCapacity];
+		airportX = new float[airportCapacity];
+		airportY = new float[airportCapacity];
+		startAirport = new int[flightCapacity];
+		endAirport = new int[flightCapacity];
+		startTime = new long[flightCapacity];
+		duration = new int[flightCapacity];
+		departureTime = new long[flightCapacity];
+		landingTime = new long[flightCapacity];
+		views = new Flight[flightCapacity];
+	}
+
+	/**
+	 * Builds a table of the given flights, which are the views of their rows
+	 * @param airports Airports of the flights
+	 * @param flights Flights in the order of their rows
+	 */
+	public static FlightTable of(List<Airport> airports, List<Flight> flights) {
+		FlightTable table = new FlightTable(airports.size(), flights.size());
+		for (Airport a : airports) {
+			table.addAirport(a);
+		}
+		for (Flight f : flights) {
+			table.addFlight(f);
+		}
+		return table;
+	}
+
+	/**
+	 * @return the index of the airport, which is added if it isn't in the table yet
+	 */
+	public int addAirport(Airport a) {
+		Integer index = airportIndex.get(a);
+		if (index != null) return index;
+		if (airportCount == airports.length) {
+			int n = airportCount * 2;
+			airports = Arrays.copyOf(airports, n);
+			airportX = Arrays.copyOf(airportX, n);
+			airportY = Arrays.copyOf(airportY, n);
+		}
+		airports[airportCount] = a;
+		airportX[airportCount] = a.getVx();
+		airportY[airportCount] = a.getVy();
+		airportIndex.put(a, airportCount);
+		return airportCount++;
+	}
+
+	/**
+	 * Adds a row for the flight, which is returned as the view of the row
+	 * @return the row of the flight
+	 */
+	public int addFlight(Flight f) {
+		int row = addFlight(addAirport(f.getStartAirport()), addAirport(f.getEndAirport()),
+				f.getStartTime(), f.getDuration());
+		views[row] = f;
+		return row;
+	}
+
+	/**
+	 * Adds a row for a flight that has no Flight object yet
+	 * @return the row of the flight
+	 */
+	public int addFlight(int start, int end, long startTime, int duration) {
+		if (size == this.startTime.length) {
+			int n = size * 2;
+			startAirport = Arrays.copyOf(startAirport, n);
+			endAirport = Arrays.copyOf(endAirport, n);
+			this.startTime = Arrays.copyOf(this.startTime, n);
+			this.duration = Arrays.copyOf(this.duration, n);
+			departureTime = Arrays.copyOf(departureTime, n);
+			landingTime = Arrays.copyOf(landingTime, n);
+			views = Arrays.copyOf(views, n);
+		}
+		startAirport[size] = start;
+		endAirport[size] = end;
+		this.startTime[size] = startTime;
+		this.duration[size] = duration;
+		departureTime[size] = startTime;
+		landingTime[size] = startTime;
+		return size++;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int airportCount() {
+		return airportCount;
+	}
+
+	public Airport getAirport(int index) {
+		return airports[index];
+	}
+
+	/**
+	 * @return the x coordinate of the airport on the map grid
+	 */
+	public float getAirportX(int index) {
+		return airportX[index];
+	}
+
+	/**
+	 * @return the y coordinate of the airport on the map grid
+	 */
+	public float getAirportY(int index) {
+		return airportY[index];
+	}
+
+	public int getStartAirport(int row) {
+		return startAirport[row];
+	}
+
+	public int getEndAirport(int row) {
+		return endAirport[row];
+	}
+
+	/**
+	 * @return the scheduled start time in minutes
+	 */
+	public long getStartTime(int row) {
+		return startTime[row];
+	}
+
+	public int getDuration(int row) {
+		return duration[row];
+	}
+
+	/**
+	 * @return the time the flight departs at in minutes, later than the start time if it was delayed
+	 */
+	public long getDepartureTime(int row) {
+		return departureTime[row];
+	}
+
+	public void setDepartureTime(int row, long time) {
+		departureTime[row] = time;
+	}
+
+	/**
+	 * @return the time the flight arrives at in minutes, based on its departure time
+	 */
+	public long getArrivalTime(int row) {
+		return departureTime[row] + duration[row];
+	}
+
+	/**
+	 * @return the time the flight lands at in minutes, later than the arrival time if it holds
+	 */
+	public long getLandingTime(int row) {
+		return Math.max(landingTime[row], getArrivalTime(row));
+	}
+
+	/**
+	 * Sets the time the flight lands at, it is never before the arrival time
+	 */
+	public void setLandingTime(int row, long time) {
+		landingTime[row] = time;
+	}
+
+	/**
+	 * @return the Flight object that views the row, created if the row has none
+	 */
+	public Flight getFlight(int row) {
+		Flight f = views[row];
+		if (f == null) {
+			f = new Flight(1, airports[startAirport[row]], airports[endAirport[row]],
+					(int) (startTime[row] / 60), (int) (startTime[row] % 60), duration[row]);
+			views[row] = f;
+		}
+		return f;
+	}
+
+}
@@ -1,7 +1,13 @@
 package data;
 
-import java.util.ArrayList;
-import java.util.NoSuchElementException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import data.model.Airport;
 import data.model.Flight;
@@ -9,50 +15,131 @@ import data.model.Flight;
 /**
  * This class is the data set used to hold the airport and flight data, giving an
  * interface for the storage of data from various sources.
+ *
+ * <p> The data is kept in an immutable snapshot that is replaced on every change, so
+ * the GUI and a running simulation can read it without locking while airports and
+ * flights are being added or a new schedule is being loaded. Lists returned by the
+ * getters never change after they are returned.
  */
 public class InitialData {
 
-	private static ArrayList<Airport> airports = new ArrayList<>();
-	private static ArrayList<Flight> flights = new ArrayList<>();
-	
-	public static void addAirport(Airport airport) {
-		if (!airports.contains(airport)) {
-			airports.add(airport);
+	/**
+	 * Airports and flights at one point in time. The arrays are only ever appended to
+	 * beyond the counts, so a snapshot stays valid after newer ones are published.
+	 */
+	private static class Snapshot {
+		final Airport[] airports;
+		final int airportCount;
+		final Flight[] flights;
+		final int flightCount;
+
+		Snapshot(Airport[] airports, int airportCount, Flight[] flights, int flightCount) {
+			this.airports = airports;
+			this.airportCount = airportCount;
+			this.flights = flights;
+			this.flightCount = flightCount;
 		}
 	}
+
+	private volatile Snapshot snapshot = new Snapshot(new Airport[16], 0, new Flight[16], 0);
 	
-	public static void addFlight(Flight flight) {
-		if (!flights.contains(flight)) {
-			flights.add(flight);
+	// Indexes of the latest snapshot, for constant time lookups and duplicate checks
+	private volatile Map<String, Airport> airportsByTag = new ConcurrentHashMap<>();
+	private volatile Set<Flight> flightSet = ConcurrentHashMap.newKeySet();
+	private List<ScheduleListener> listeners = new CopyOnWriteArrayList<>();
+
+	public synchronized void addAirport(Airport airport) {
+		Snapshot s = snapshot;
+		if (airportsByTag.containsKey(airport.getTag())) return;
+		Airport[] airports = s.airports;
+		if (s.airportCount == airports.length) {
+			airports = Arrays.copyOf(airports, airports.length * 2);
+		}
+		airports[s.airportCount] = airport;
+		snapshot = new Snapshot(airports, s.airportCount + 1, s.flights, s.flightCount);
+		airportsByTag.put(airport.getTag(), airport);
+		for (ScheduleListener l : listeners) {
+			l.airportAdded(airport);
 		}
 	}
-	
-	public static ArrayList<Airport> getAirports() {
-		return airports;
+
+	public synchronized void addFlight(Flight flight) {
+		Snapshot s = snapshot;
+		if (flightSet.contains(flight)) return;
+		Flight[] flights = s.flights;
+		if (s.flightCount == flights.length) {
+			flights = Arrays.copyOf(flights, flights.length * 2);
+		}
+		flights[s.flightCount] = flight;
+		snapshot = new Snapshot(s.airports, s.airportCount, flights, s.flightCount + 1);
+		flightSet.add(flight);
+		for (ScheduleListener l : listeners) {
+			l.flightAdded(flight);
+		}
 	}
 
-	public static ArrayList<Flight> getFlights() {
-		return flights;
+	/**
+	 * Replaces all the data at once, readers either see the old or the new data, never a mix
+	 * @param airports Airports of the new schedule
+	 * @param flights Flights of the new schedule, their airports should be in airports
+	 */
+	public void replace(Collection<Airport> airports, Collection<Flight> flights) {
+		Airport[] newAirports = airports.toArray(new Airport[0]);
+		Flight[] newFlights = flights.toArray(new Flight[0]);
+		Map<String, Airport> newAirportsByTag = new ConcurrentHashMap<>(newAirports.length * 2);
+		for (Airport a : newAirports) {
+			newAirportsByTag.put(a.getTag(), a);
+		}
+		Set<Flight> newFlightSet = ConcurrentHashMap.newKeySet(newFlights.length * 2);
+		Collections.addAll(newFlightSet, newFlights);
+		synchronized (this) {
+			snapshot = new Snapshot(newAirports, newAirports.length, newFlights, newFlights.length);
+			airportsByTag = newAirportsByTag;
+			flightSet = newFlightSet;
+			for (ScheduleListener l : listeners) {
+				l.scheduleReplaced();
+			}
+		}
 	}
-	
+
 	/**
-	 * Checks if the airport exists in the Data by the unique tag 
+	 * @return an unmodifiable list of the airports at the moment of the call
+	 */
+	public List<Airport> getAirports() {
+		Snapshot s = snapshot;
+		return Collections.unmodifiableList(Arrays.asList(s.airports).subList(0, s.airportCount));
+	}
+
+	/**
+	 * @return an unmodifiable list of the flights at the moment of the call
+	 */
+	public List<Flight> getFlights() {
+		Snapshot s = snapshot;
+		return Collections.unmodifiableList(Arrays.asList(s.flights).subList(0, s.flightCount));
+	}
+
+	/**
+	 * Listeners are called while the data is locked, so they should only hand the change over.
+	 * Taking the lock of this object while reading the data and adding a listener guarantees
+	 * that no change is missed or seen twice.
+	 */
+	public void addListener(ScheduleListener l) {
+		listeners.add(l);
+	}
+
+	public void removeListener(ScheduleListener l) {
+		listeners.remove(l);
+	}
+
+	/**
+	 * Checks if the airport exists in the Data by the unique tag
 	 * @param tag Tag by which the airport is searched in the data set
 	 * @return the Airport object if it exists, otherwise null
 	 */
-	public static Airport findByTag(String tag) {
-		try {
-		Airport found = InitialData.getAirports().stream()
-			    .filter(airport -> airport.getTag().equals(tag))  
-			    .findFirst()  
-			    .get();  
-		return found;
-		} catch (NoSuchElementException e) {
-			return null;
-		}
-		
+	public Airport findByTag(String tag) {
+		return airportsByTag.get(tag);
 	}
-
+	
 	public InitialData() {}
 
 }
@@ -0,0 +1,21 @@
+package data;
+
+import data.model.Airport;
+import data.model.Flight;
+
+/**
+ * This interface is notified about changes of the InitialData, on the thread that made
+ * the change, after the change can be seen by the getters and while the data is locked.
+ */
+public interface ScheduleListener {
+
+	void airportAdded(Airport airport);
+
+	void flightAdded(Flight flight);
+
+	/**
+	 * All the airports and flights have been replaced, e.g. by loading a file
+	 */
+	void scheduleReplaced();
+
+}
@@ -2,17 +2,19 @@ package data.model;
 
 import java.awt.Color;
 import java.awt.Graphics;
-import java.util.ArrayDeque;
-import java.util.Queue;
 
-import helper.SimulationClock;
+import helper.ViewTransform;
 
 /**
  * This class models an airport, which is identified by its unique three letter tag,
  * and defined by its name, and integer Cartesian coordinates in [-90,90].
  * 
- * <p> The Airport holds a queue of Flights, so flights can't happen all at once, but
- * wait until all previous flights have dispatched.
+ * <p> The Airport has a RunwayScheduler for its departures, holding a queue of Flights,
+ * identified by their rows in the simulation's FlightTable, so flights can't happen all at
+ * once, but wait until all previous flights have dispatched. It has another one for its
+ * arrivals, where flights hold over the airport until a runway is free to land on. Two
+ * movements on a runway are at least its separation apart in simulated minutes, however
+ * long the simulation's ticks are.
  * <p> The Airport is displayed as a gray rectangle.
  */
 public class Airport extends Model {
@@ -21,15 +23,27 @@ public class Airport extends Model {
 	private String tag;
 	boolean active = true;
 	boolean flash = false;
-	private Queue<Flight> waitingZone = new ArrayDeque();
-	private int lastDepartedFlightTime;
-	private int passedTime = 10;
+	private final RunwayScheduler departures;
+	private final RunwayScheduler arrivals;
 	
-	public Airport(double scale, int x, int y, int width, String name, String tag) {
-		super(x, y, width, scale);
+	public Airport(int x, int y, int width, String name, String tag) {
+		super(x, y, width);
 		this.name = name;
 		this.tag = tag;
+		this.departures = new RunwayScheduler();
+		this.arrivals = new RunwayScheduler();
 		}
+	
+	/**
+	 * Creates a copy of the airport with empty queues and the same runways, so it can
+	 * be used by a simulation that runs independently of the original
+	 */
+	public Airport(Airport other) {
+		this(other.vx, other.vy, other.width, other.name, other.tag);
+		this.active = other.active;
+		departures.setCapacity(other.departures.getSeparation(), other.departures.getRunways());
+		arrivals.setCapacity(other.arrivals.getSeparation(), other.arrivals.getRunways());
+	}
 
 	public void toggleActive() {
 		active = !active;
@@ -55,46 +69,18 @@ public class Airport extends Model {
 		flash = !flash;
 	}
 	
-	public boolean canInstantFly() {
-		if (passedTime >= 10 && waitingZone.size() == 0) {
-			return true;
-		}
-		return false;
-	}
-	
-	public boolean canWaitingFly() {
-		if (passedTime >= 10) {
-			return true;
-		}
-		return false;
-	}
-	
-	public void setLastDepartedFlightTime(int lastDepartedFlightTime) {
-		this.lastDepartedFlightTime = lastDepartedFlightTime;
-	}
-	
-	public int getLastDepartedFlightTime() {
-		return lastDepartedFlightTime;
-	}
-	
-	public int getPassedTime() {
-		return passedTime;
-	}
-	
-	public void setPassedTime(int passedTime) {
-		this.passedTime = passedTime;
+	/**
+	 * @return the scheduler of the departures, with the queue of the waiting flights
+	 */
+	public RunwayScheduler getDepartures() {
+		return departures;
 	}
 
-	public void addFlightToQueue(Flight f) {
-		waitingZone.add(f);
-	}
-	
-	public Flight getNextFlight() {
-		return waitingZone.poll();
-	}
-	
-	public int numberOfWaitingFlight() {
-		return waitingZone.size();
+	/**
+	 * @return the scheduler of the landings, with the queue of the holding flights
+	 */
+	public RunwayScheduler getArrivals() {
+		return arrivals;
 	}
 
 	@Override
@@ -110,18 +96,33 @@ public class Airport extends Model {
 			return true;
 		return false;
 	}
+	
+	@Override
+	public int hashCode() {
+		return tag.hashCode();
+	}
 
 	@Override
-	public void paint(Graphics g, SimulationClock timer) {
-		int scaleApr = (int)scale;
+	public void paint(Graphics g, ViewTransform view) {
+		paint(g, view, true);
+	}
+	
+	/**
+	 * @param label false to leave out the tag, when too many airports are displayed to read them
+	 */
+	public void paint(Graphics g, ViewTransform view, boolean label) {
+		int scaleApr = view.getMarkerSize();
+		int x = view.screenX(vx), y = view.screenY(vy);
         Color color = g.getColor();
         
         if (!flash) g.setColor(Color.gray);
         else g.setColor(Color.red);
         g.fillRect(x - 2*scaleApr, y - 2*scaleApr, 4*scaleApr, 4*scaleApr); // -3 to center the circle on the coordinate
 
-        g.setColor(Color.BLACK);
-        g.drawString(getTag(), x + (int)4*scaleApr, (int)y + 2*scaleApr);
+        if (label) {
+        	g.setColor(Color.BLACK);
+        	g.drawString(getTag(), x + (int)4*scaleApr, (int)y + 2*scaleApr);
+        }
         g.setColor(color); 
 	}
 }
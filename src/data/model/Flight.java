@@ -3,11 +3,17 @@ package data.model;
 import java.awt.Color;
 import java.awt.Graphics;
 
+import helper.GreatCircle;
 import helper.SimulationClock;
+import helper.ViewTransform;
 
 /**
  * This class models a flight, being defined by a starting airport, destination airport,
- * start hour, start minute and the duration of the flight.
+ * start hour, start minute and the duration of the flight. Hours past 23 are on the
+ * following days, and the flight keeps its start as an absolute simulation instant.
+ * 
+ * <p> While it is simulated, the flight is kept in a row of a FlightTable, and it is
+ * painted at the position the renderer computed for it.
  * 
  * <p> The actual flight is painted as a blue dot.
  */
@@ -15,15 +21,14 @@ public class Flight extends Model {
 	
 	private Airport startAirport;
 	private Airport endAirport;
-	private int hour, minute;
+	private long start;
 	private int duration;
 
 	public Flight(int width, Airport startAirport, Airport endAirport, int startHour, int startMinute, int duration) {
-		super(startAirport.getX(), startAirport.getY(), width, startAirport.scale);
+		super(startAirport.getVx(), startAirport.getVy(), width);
 		this.startAirport = startAirport;
 		this.endAirport = endAirport;
-		this.hour = startHour;
-		this.minute = startMinute;
+		this.start = startHour * 60L + startMinute;
 		this.duration = duration;
 	}
 	
@@ -35,47 +40,57 @@ public class Flight extends Model {
 		return endAirport;
 	}
 	
-	public int getHour() {
-		return hour;
+	/**
+	 * @return the hours from the start of the simulation to the start of the flight
+	 */
+	public long getHour() {
+		return start / 60;
 	}
 
 	public int getMinute() {
-		return minute;
+		return (int) (start % 60);
 	}
 
 	public int getDuration() {
 		return duration;
 	}
 	
-	public int getStartTime() {
-		return hour * 60 + minute;
+	/**
+	 * @return the start of the flight in minutes since the start of the simulation
+	 */
+	public long getStartTime() {
+		return start;
+	}
+	
+	/**
+	 * @return the great-circle distance between the airports in km, their coordinates
+	 * being the longitude and latitude
+	 */
+	public double getDistance() {
+		return GreatCircle.distance(startAirport.getVx(), startAirport.getVy(), endAirport.getVx(), endAirport.getVy());
 	}
 	
 	@Override
 	public String toString() {
 		return "Flight: " + 
 	            startAirport.getTag() + " -->" + endAirport.getTag() + 
-	            "  |  Start: " + getHour() + ":" + getMinute() + 
-	            "  |  Duration: " + duration;
+	            "  |  Start: " + SimulationClock.format(start) + 
+	            "  |  Duration: " + duration +
+	            "  |  Distance: " + Math.round(getDistance()) + " km";
 	}
 	
 	@Override
-	public void paint(Graphics g, SimulationClock timer) {
-		int scaleApr = (int)scale;
-		
-		// Updates the flight's position based on the simulation clock
-		if (timer.isIntervalActive(hour, minute,
-				duration))
-		{
-			int startTime = hour * 60 + minute;
-			int totalTime = duration;
-			int currentTime = timer.getHour() * 60 + 
-					timer.getMinute() - startTime;
-			x = startAirport.x + (int)((endAirport.x - startAirport.x) *
-					(double)(currentTime)/totalTime);
-			y = startAirport.y + (int)((endAirport.y - startAirport.y) *
-					(double)(currentTime)/totalTime);
-		}
+	public void paint(Graphics g, ViewTransform view) {
+		paintAt(g, view, getGridX(), getGridY());
+	}
+	
+	/**
+	 * Paints the flight at the given position on the map grid, where it is at the
+	 * time of the frame being painted
+	 */
+	public void paintAt(Graphics g, ViewTransform view, double gx, double gy) {
+		int scaleApr = view.getMarkerSize();
+		int x = view.screenX(gx), y = view.screenY(gy);
         
         Color color = g.getColor();
         
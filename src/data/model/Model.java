@@ -1,30 +1,44 @@
 package data.model;
 
 import java.awt.Graphics;
-import helper.SimulationClock;
+import helper.ViewTransform;
 
 /**
  * This abstract class is a general Model of things that can be painted on a 2D canvas,
- * being defined by its integer x, y position and width.
+ * being defined by its integer x, y position on the map grid and width.
+ * 
+ * <p> Models don't know where they are on the screen, they are painted through the
+ * ViewTransform of the canvas.
  */
 public abstract class Model {
-	protected int x, y, vx, vy, width;
-	protected double scale;
+	protected int vx, vy, width;
 
-	public int getX() {
-		return x;
+	/**
+	 * @return the x coordinate on the map grid, in [-90, 90]
+	 */
+	public int getVx() {
+		return vx;
 	}
 
-	public void setX(int x) {
-		this.x = x;
+	/**
+	 * @return the y coordinate on the map grid, in [-90, 90]
+	 */
+	public int getVy() {
+		return vy;
 	}
 
-	public int getY() {
-		return y;
+	/**
+	 * @return the current x coordinate on the map grid, which can be between grid points
+	 */
+	public double getGridX() {
+		return vx;
 	}
 
-	public void setY(int y) {
-		this.y = y;
+	/**
+	 * @return the current y coordinate on the map grid, which can be between grid points
+	 */
+	public double getGridY() {
+		return vy;
 	}
 
 	public int getWidth() {
@@ -35,30 +49,24 @@ public abstract class Model {
 		this.width = width;
 	}
 	
-	public static int realX(int vx, double scale) {
-		return (int) ((vx + 90) * scale);
-	}
-	
-	public static int realY(int vy, double scale) {		
-	    return (int) ((90 - vy) * scale);
-	}
-
-	public Model(int vx, int vy, int width, double scale) {
+	public Model(int vx, int vy, int width) {
 		this.vx = vx;
 		this.vy = vy;
-		this.x = realX(vx, scale);
-		this.y = realY(vy, scale);
 		this.width = width;
-		this.scale = scale;
 	}
 	
-	public abstract void paint(Graphics g, SimulationClock timer);
-	public boolean isInside(int x, int y) {
-		int scaleApr = (int)scale;
-		if(x >= this.x - 2*scaleApr
-				&& x < this.x + 2*scaleApr - 1
-				&& y >= this.y - 2*scaleApr
-				&& y < this.y + 2*scale - 1
+	public abstract void paint(Graphics g, ViewTransform view);
+	
+	/**
+	 * @return true if the pixel is on the model as it is painted in the view
+	 */
+	public boolean isInside(int x, int y, ViewTransform view) {
+		int size = view.getMarkerSize();
+		int mx = view.screenX(getGridX()), my = view.screenY(getGridY());
+		if(x >= mx - 2*size
+				&& x < mx + 2*size - 1
+				&& y >= my - 2*size
+				&& y < my + 2*size - 1
 			) return true;
 		return false;
 	}
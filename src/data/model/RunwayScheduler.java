@@ -0,0 +1,141 @@
+package data.model;
+
+import java.util.Arrays;
+
+/**
+ * This class hands out the slots of an airport's runways, for its departures or for its
+ * arrivals, and holds the queue of the flights waiting for one, identified by their rows
+ * in the simulation's FlightTable: flights waiting on the ground to depart, or holding
+ * over the airport to land.
+ *
+ * <p> Two movements on the same runway are at least the separation apart in simulated
+ * minutes, and the airport has a number of parallel runways used in turn. Since movements
+ * only move forward in time, the runway that is free first is always the next one in turn,
+ * so checking for a free runway takes constant time. A waiting flight is told the earliest
+ * time it can get from the runway it will use, which is only an estimate: the flights are
+ * dispatched on the simulation's ticks, so they may leave the queue a little later. Flights
+ * join the queue in the order they are due, so it is first in, first out, and adding or
+ * taking out a flight takes constant time as well.
+ */
+public class RunwayScheduler {
+
+	// Simulated minutes between two movements on the same runway, and runways of an airport
+	public static final int DEFAULT_SEPARATION = 10;
+	public static final int DEFAULT_RUNWAYS = 1;
+
+	private int separation;
+	private int runways;
+	// Simulation times of the last movement on each runway, and the runway used next
+	private long[] lastMovements;
+	private int nextRunway;
+
+	// Rows of the waiting flights, queue[head] is the first one
+	private int[] queue = new int[4];
+	private int head;
+	private int size;
+
+	public RunwayScheduler() {
+		this(DEFAULT_SEPARATION, DEFAULT_RUNWAYS);
+	}
+
+	/**
+	 * @param separation Simulated minutes between two movements on the same runway
+	 * @param runways Number of parallel runways
+	 */
+	public RunwayScheduler(int separation, int runways) {
+		setCapacity(separation, runways);
+	}
+
+	/**
+	 * Changes the capacity of the runways and frees them
+	 * @param separation Simulated minutes between two movements on the same runway
+	 * @param runways Number of parallel runways
+	 */
+	public void setCapacity(int separation, int runways) {
+		if (separation < 0) throw new IllegalArgumentException("The separation can't be negative");
+		if (runways < 1) throw new IllegalArgumentException("An airport needs at least one runway");
+		this.separation = separation;
+		this.runways = runways;
+		lastMovements = new long[runways];
+		Arrays.fill(lastMovements, -separation);
+		nextRunway = 0;
+	}
+
+	public int getSeparation() {
+		return separation;
+	}
+
+	public int getRunways() {
+		return runways;
+	}
+
+	/**
+	 * @param now Simulation time in minutes
+	 * @return true if a runway is free for a movement
+	 */
+	public boolean isRunwayFree(long now) {
+		return now - lastMovements[nextRunway] >= separation;
+	}
+
+	/**
+	 * @param now Simulation time in minutes
+	 * @return true if a flight can use a runway without waiting behind the queue
+	 */
+	public boolean canUseNow(long now) {
+		return size == 0 && isRunwayFree(now);
+	}
+
+	/**
+	 * Adds a flight to the end of the queue
+	 * @return the earliest time it can depart or land at, from the last movement on the
+	 * runway it will use and the flights ahead of it on that runway
+	 */
+	public long enqueue(int row) {
+		long slot = lastMovements[(nextRunway + size) % runways] + (size / runways + 1) * (long) separation;
+		if (size == queue.length) {
+			int[] grown = new int[size * 2];
+			for (int i = 0; i < size; i++) {
+				grown[i] = queue[(head + i) % queue.length];
+			}
+			queue = grown;
+			head = 0;
+		}
+		queue[(head + size++) % queue.length] = row;
+		return slot;
+	}
+
+	/**
+	 * @return the row of the next flight in the queue, or -1 if the queue is empty
+	 */
+	public int poll() {
+		if (size == 0) return -1;
+		int row = queue[head];
+		head = (head + 1) % queue.length;
+		size--;
+		return row;
+	}
+
+	/**
+	 * Takes the next free runway for a departure or a landing
+	 * @param now Simulation time of the movement
+	 */
+	public void use(long now) {
+		lastMovements[nextRunway] = now;
+		nextRunway = (nextRunway + 1) % runways;
+	}
+
+	public int getWaitingCount() {
+		return size;
+	}
+
+	/**
+	 * Empties the queue and frees the runways, so a new simulation starts with the airport free
+	 */
+	public void reset() {
+		head = 0;
+		size = 0;
+		Arrays.fill(lastMovements, -separation);
+		nextRunway = 0;
+	}
+
+}
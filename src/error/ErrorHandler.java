@@ -1,6 +1,6 @@
 package error;
 
-import java.util.ArrayList;
+import java.util.Map;
 
 import data.InitialData;
 import data.model.Airport;
@@ -16,21 +16,27 @@ public class ErrorHandler {
 	
 	public static boolean isValidCoordinate(String coord) {
 		try {
-			int x = Integer.parseInt(coord);
-			if (x <= 90 && x >= -90) return true;	
+			return isValidCoordinate(Integer.parseInt(coord));
 		} catch(Exception e) {}
 		return false;
 	}
 	
-	public static boolean isUniqueTag(Airport port) {
-		if (InitialData.getAirports().contains(port)) {
+	public static boolean isValidCoordinate(int coord) {
+		return coord <= 90 && coord >= -90;
+	}
+	
+	public static boolean isUniqueTag(Airport port, InitialData data) {
+		if (data.findByTag(port.getTag()) != null) {
 			return false;
 		}
 		return true;
 	}
 	
-	public static boolean isUniqueTagCSV(Airport port, ArrayList<Airport> container) {
-		if (container.contains(port)) {
+	/**
+	 * @param container Airports that were already read, by tag
+	 */
+	public static boolean isUniqueTagCSV(Airport port, Map<String, Airport> container) {
+		if (container.containsKey(port.getTag())) {
 			return false;
 		}
 		return true;
@@ -0,0 +1,41 @@
+package error;
+
+/**
+ * This exception is thrown when Airport/Flight data that is being loaded is not formatted
+ * correctly, its message describes the problem in a way that can be shown to the user.
+ */
+public class ScheduleFormatException extends Exception {
+
+	private static final long serialVersionUID = 1L;
+
+	private final String reason;
+	private final long line;
+
+	public ScheduleFormatException(String message) {
+		super(message);
+		this.reason = message;
+		this.line = 0;
+	}
+
+	/**
+	 * @param reason Description of the problem
+	 * @param line Line of the file the problem is on, starting from 1
+	 */
+	public ScheduleFormatException(String reason, long line) {
+		super("Line " + line + ": " + reason);
+		this.reason = reason;
+		this.line = line;
+	}
+
+	public String getReason() {
+		return reason;
+	}
+
+	/**
+	 * @return the line of the file the problem is on, or 0 if it is not known
+	 */
+	public long getLine() {
+		return line;
+	}
+
+}
@@ -3,8 +3,11 @@ package gui;
 import java.awt.BorderLayout;
 import java.awt.Button;
 import java.awt.Checkbox;
+import java.awt.Choice;
 import java.awt.Color;
+import java.awt.Component;
 import java.awt.Dimension;
+import java.awt.EventQueue;
 import java.awt.FileDialog;
 import java.awt.FlowLayout;
 import java.awt.Frame;
@@ -15,17 +18,18 @@ import java.awt.MenuBar;
 import java.awt.MenuItem;
 import java.awt.MenuShortcut;
 import java.awt.Panel;
-import java.awt.ScrollPane;
-import java.awt.event.ItemEvent;
-import java.awt.event.ItemListener;
+import java.awt.TextField;
 import java.awt.event.KeyEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.util.List;
 
 import data.InitialData;
+import data.ScheduleListener;
 import data.model.Airport;
 import data.model.Flight;
 import gui.input.InputDialog;
+import helper.BinarySnapshot;
 import helper.FileSystem;
 import helper.KillerThread;
 import logic.Simulation;
@@ -33,8 +37,9 @@ import logic.Simulation;
 /**
  * The Main Window of the project, containing the following:
  * - Center Panel: a MapScene object (Canvas) that displays the map 
- * - Right Panel: a list of Airport and Flights that have been added/loaded
- * - Bottom Panel: Start and Pause buttons, and the Simulation Clock
+ * - Right Panel: a list of Airport and Flights that have been added/loaded, which can be
+ *   filtered by airport tag
+ * - Bottom Panel: Start and Pause buttons, the speed of the simulation, and the Simulation Clock
  * - A Killer Thread that kills the app after KILL_TIME
  */
 public class MainWindow extends Frame {
@@ -45,8 +50,31 @@ public class MainWindow extends Frame {
 	Panel centerPanel = new Panel();
 	Panel rightPanel = new Panel(new GridLayout(2, 1));
 	Label time = new Label();
-	private 	Panel airportsContainerPanel = new Panel(new GridLayout(0, 1));
-	private Panel flightsContainerPanel = new Panel(new GridLayout(0, 1));
+	private static final int ROW_HEIGHT = 24;
+	private VirtualList<Airport> airportsList = new VirtualList<>(new VirtualList.RowFactory<Airport>() {
+		@Override
+		public Checkbox create() {
+			return new AirportCheckbox();
+		}
+		
+		@Override
+		public void bind(Component row, Airport airport) {
+			((AirportCheckbox) row).show(airport);
+		}
+	}, ROW_HEIGHT);
+	private VirtualList<Flight> flightsList = new VirtualList<>(new VirtualList.RowFactory<Flight>() {
+		@Override
+		public Label create() {
+			return new Label();
+		}
+		
+		@Override
+		public void bind(Component row, Flight flight) {
+			((Label) row).setText(flight.toString());
+		}
+	}, ROW_HEIGHT);
+	private TextField tagFilter = new TextField();
+	public InitialData data = new InitialData();
 	public MapScene map = new MapScene(this);
 	private Panel bottomPanel = new Panel();
 	private Label timeText = new Label("Time: ");
@@ -54,6 +82,13 @@ public class MainWindow extends Frame {
 	private Button pause = new Button("Pause");
 	private boolean first_run = true;
 	private boolean paused = false;
+	private Label speedText = new Label("Speed: ");
+	private Choice speedChoice = new Choice();
+	// Shows what the last file that was loaded contained, and how long it took
+	private Label status = new Label();
+	// Factors of the normal speed offered by speedChoice, 0 is as fast as possible
+	private static final int[] SPEEDS = {1, 10, 100, 0};
+	private int speed = 1;
 	private int dim;
 	public KillerThread killer;
 	boolean[] killerPauseActions = new boolean[3];
@@ -90,56 +125,40 @@ public class MainWindow extends Frame {
 		Menu fileMenu = new Menu("File");
 		MenuItem save = new MenuItem("save to a CSV file", new MenuShortcut(KeyEvent.VK_S));
 		MenuItem load = new MenuItem("load a CSV file", new MenuShortcut(KeyEvent.VK_L));
+		MenuItem saveSnapshot = new MenuItem("save to a snapshot file", new MenuShortcut(KeyEvent.VK_S, true));
+		MenuItem loadSnapshot = new MenuItem("load a snapshot file", new MenuShortcut(KeyEvent.VK_L, true));
 		fileMenu.add(save);
 		fileMenu.add(load);
+		fileMenu.addSeparator();
+		fileMenu.add(saveSnapshot);
+		fileMenu.add(loadSnapshot);
 		
 		save.addActionListener((ae) -> {
-			killer.userAction();
-			killerPauseActions[2] = true;
-			killerRefresh();
-			
-		    FileDialog fd = new FileDialog(this, "Save CSV File", FileDialog.SAVE);
-		    fd.setFilenameFilter((dir, name) -> name.toLowerCase().endsWith(".csv"));
-
-		    fd.setVisible(true); 
-		    
-		    killerPauseActions[2] = false;
-		    killerRefresh();	    		    
-		    
-		    String directory = fd.getDirectory();
-		    String fileName = fd.getFile();
-		    if (fileName != null && directory != null) {
-		        String filePath = directory + fileName;  
-		        FileSystem.saveToCSV(filePath);
-		    } 
+			String filePath = chooseFile("Save CSV File", FileDialog.SAVE, ".csv", null);
+			if (filePath != null) {
+				FileSystem.saveToCSV(filePath, data);
+			}
 		});
 		
 		load.addActionListener((ae) -> {
-			killer.userAction();
-			killerPauseActions[2] = true;
-			killerRefresh();
-			
-		    FileDialog fd = new FileDialog(this, "Load CSV File", FileDialog.LOAD);
-		    fd.setFile("simulation.csv");  
-		    fd.setFilenameFilter((dir, name) -> name.toLowerCase().endsWith(".csv"));
-		    fd.setVisible(true);  
-		    killerPauseActions[2] = false;
-		    killerRefresh();
-		    
-		    String directory = fd.getDirectory();
-		    String fileName = fd.getFile();
-		    if (fileName != null && directory != null) {  
-		        String filePath = directory + fileName; 
-		        if (FileSystem.loadFromCSV(filePath, this)) {
-		            updateAirportsAndFlights();
-			    		if (map.simulation != null) {
-			    			map.simulation.finish();
-				    		map.simulation = new Simulation(map, time, paused);
-			    		}
-		            map.repaint();
-		            
-		        }
-		    }
+			String filePath = chooseFile("Load CSV File", FileDialog.LOAD, ".csv", "simulation.csv");
+			if (filePath == null) return;
+			String report = FileSystem.loadFromCSV(filePath, this);
+			if (report != null) scheduleLoaded(report);
+		});
+		
+		saveSnapshot.addActionListener((ae) -> {
+			String filePath = chooseFile("Save Snapshot File", FileDialog.SAVE, BinarySnapshot.EXTENSION, null);
+			if (filePath != null) {
+				FileSystem.saveToBinary(filePath, data);
+			}
+		});
+		
+		loadSnapshot.addActionListener((ae) -> {
+			String filePath = chooseFile("Load Snapshot File", FileDialog.LOAD, BinarySnapshot.EXTENSION, null);
+			if (filePath == null) return;
+			String report = FileSystem.loadFromBinary(filePath, this);
+			if (report != null) scheduleLoaded(report);
 		});
 		
 		Menu addMenu = new Menu("Add");
@@ -164,6 +183,48 @@ public class MainWindow extends Frame {
 		setMenuBar(menuBar);
 	}
 	
+	/**
+	 * Shows a file dialog, pausing the kill timer while it is open
+	 * @param mode FileDialog.LOAD or FileDialog.SAVE
+	 * @param extension Extension of the files that are listed
+	 * @param defaultFile File that is initially selected, can be null
+	 * @return the path of the chosen file, or null if the dialog was cancelled
+	 */
+	private String chooseFile(String title, int mode, String extension, String defaultFile) {
+		killer.userAction();
+		killerPauseActions[2] = true;
+		killerRefresh();
+		
+	    FileDialog fd = new FileDialog(this, title, mode);
+	    if (defaultFile != null) fd.setFile(defaultFile);
+	    fd.setFilenameFilter((dir, name) -> name.toLowerCase().endsWith(extension));
+	    fd.setVisible(true);
+	    
+	    killerPauseActions[2] = false;
+	    killerRefresh();
+	    
+	    String directory = fd.getDirectory();
+	    String fileName = fd.getFile();
+	    if (fileName != null && directory != null) {
+	        return directory + fileName;
+	    }
+	    return null;
+	}
+	
+	/**
+	 * Restarts a running simulation after a new schedule was loaded
+	 * @param report What was loaded, shown in the bottom panel
+	 */
+	private void scheduleLoaded(String report) {
+		status.setText(report);
+		status.revalidate();
+		if (map.simulation != null) {
+			map.simulation.finish();
+			map.simulation = newSimulation();
+		}
+		map.repaint();
+	}
+	
 	public void centerPanelSetup() {
 	    map.setPreferredSize(new Dimension(dim, dim));
 	    map.setBackground(Color.green);
@@ -174,6 +235,15 @@ public class MainWindow extends Frame {
 	}
 	
 	
+	/**
+	 * @return a new simulation of the data, at the selected speed
+	 */
+	private Simulation newSimulation() {
+		Simulation simulation = new Simulation(map, data, time, paused);
+		simulation.setSpeed(speed);
+		return simulation;
+	}
+	
 	public void bottomPanelSetup() {
 		start.addActionListener((ae) -> {
 			killer.userAction();
@@ -189,7 +259,7 @@ public class MainWindow extends Frame {
 	    		}
 	
 			if (map.simulation != null) map.simulation.finish();
-			map.simulation = new Simulation(map, time, paused);
+			map.simulation = newSimulation();
 			
 			map.repaint();
 			map.requestFocus();
@@ -221,6 +291,19 @@ public class MainWindow extends Frame {
 	    pause.setVisible(false);
 	    bottomPanel.add(pause);
 	    
+	    for (int s : SPEEDS) {
+	    	speedChoice.add(s == 0 ? "As fast as possible" : s + "x");
+	    }
+	    speedChoice.addItemListener((ie) -> {
+	    	killer.userAction();
+	    	speed = SPEEDS[speedChoice.getSelectedIndex()];
+	    	if (map.simulation != null) map.simulation.setSpeed(speed);
+	    	map.requestFocus();
+	    });
+	    bottomPanel.add(speedText);
+	    bottomPanel.add(speedChoice);
+	    bottomPanel.add(status);
+	    
 	    bottomPanel.setBackground(Color.LIGHT_GRAY);
 	    add(bottomPanel, BorderLayout.SOUTH);
 	}
@@ -230,31 +313,38 @@ public class MainWindow extends Frame {
 	    Panel rightPanel = new Panel(new BorderLayout());
 	    	Panel listsContainer = new Panel(new GridLayout(2, 1));
 
+	    // --- Tag Filter ---
+	    Panel filterPanel = new Panel(new BorderLayout());
+	    filterPanel.add(new Label("Filter by tag: "), BorderLayout.WEST);
+	    filterPanel.add(tagFilter, BorderLayout.CENTER);
+	    tagFilter.addTextListener((te) -> {
+	    	killer.userAction();
+	    	String tag = tagFilter.getText().trim().toUpperCase();
+	    	airportsList.setFilter(a -> a.getTag().startsWith(tag));
+	    	flightsList.setFilter(f -> f.getStartAirport().getTag().startsWith(tag)
+	    			|| f.getEndAirport().getTag().startsWith(tag));
+	    });
+	    
 	    // --- Airports Section ---
 	    Panel airportsSection = new Panel(new BorderLayout());
 	    Label airportsTitle = new Label("Airports");
 	    airportsTitle.setAlignment(Label.CENTER);
 	    airportsSection.add(airportsTitle, BorderLayout.NORTH);
-	    
-	    ScrollPane airportsScroll = new ScrollPane();
-	    airportsScroll.add(airportsContainerPanel);
-	    airportsSection.add(airportsScroll, BorderLayout.CENTER);
+	    airportsSection.add(airportsList, BorderLayout.CENTER);
 
 	    // --- Flights Section ---
 	    Panel flightsSection = new Panel(new BorderLayout());
 	    Label flightsTitle = new Label("Flights");
 	    flightsTitle.setAlignment(Label.CENTER);
 	    flightsSection.add(flightsTitle, BorderLayout.NORTH);
+	    flightsSection.add(flightsList, BorderLayout.CENTER);
 	    
-	    ScrollPane flightsScroll = new ScrollPane();
-	    flightsScroll.add(flightsContainerPanel);
-	    flightsSection.add(flightsScroll, BorderLayout.CENTER);
-	    
-	    updateAirportsAndFlights();
+	    listenToSchedule();
 
 	    listsContainer.add(airportsSection);
 	    listsContainer.add(flightsSection);
 	    
+	    rightPanel.add(filterPanel, BorderLayout.NORTH);
 	    rightPanel.add(listsContainer, BorderLayout.CENTER);
 	    
 	    rightPanel.setPreferredSize(new Dimension(dim, dim));
@@ -262,46 +352,63 @@ public class MainWindow extends Frame {
 	    add(rightPanel, BorderLayout.EAST);
 	}
 	
-	public void updateAirportsAndFlights() {
-	    airportsContainerPanel.removeAll();
-	    flightsContainerPanel.removeAll();
-
-	    for (Airport airport : InitialData.getAirports()) {
-	        Panel airportEntryPanel = new Panel();
-	        Checkbox airportCheckbox = new Checkbox(airport.toString(), true);
-	        
-	        airportCheckbox.addItemListener(new ItemListener() {
-	            public void itemStateChanged(ItemEvent e) {
-	                airport.toggleActive();
-	                if (airport.isActive()) map.addModel(airport);
-	                else map.removeModel(airport);
-	                killer.userAction();
-	                map.repaint();
-	            }
-	       });
-
-	        airportEntryPanel.add(airportCheckbox);
-	        airportsContainerPanel.add(airportEntryPanel);
-	    }
-
-	    for (Flight flight : InitialData.getFlights()) {
-	        Panel flightEntryPanel = new Panel();
-	        flightEntryPanel.add(new Label(flight.toString()));
-	        flightsContainerPanel.add(flightEntryPanel);
-	    }
-
-	    airportsContainerPanel.revalidate();
-	    airportsContainerPanel.repaint();
-	    flightsContainerPanel.revalidate();
-	    flightsContainerPanel.repaint();
-	    
-	    airportsContainerPanel.getParent().revalidate();
-	    airportsContainerPanel.getParent().repaint();
-	    flightsContainerPanel.getParent().revalidate();
-	    flightsContainerPanel.getParent().repaint();
-	    
-	    map.revalidate();
-	    map.repaint();
+	/**
+	 * Fills the lists with the current schedule and keeps them up to date. The changes are
+	 * taken on the thread that made them and applied in the same order on the event
+	 * dispatch thread, only the added items are shown, the lists aren't rebuilt.
+	 */
+	private void listenToSchedule() {
+		synchronized (data) {
+			airportsList.setItems(data.getAirports());
+			flightsList.setItems(data.getFlights());
+			data.addListener(new ScheduleListener() {
+				@Override
+				public void airportAdded(Airport airport) {
+					EventQueue.invokeLater(() -> airportsList.addItem(airport));
+				}
+				
+				@Override
+				public void flightAdded(Flight flight) {
+					EventQueue.invokeLater(() -> flightsList.addItem(flight));
+				}
+				
+				// The lists are read here, so that changes made after the replacement aren't shown twice
+				@Override
+				public void scheduleReplaced() {
+					List<Airport> airports = data.getAirports();
+					List<Flight> flights = data.getFlights();
+					EventQueue.invokeLater(() -> {
+						airportsList.setItems(airports);
+						flightsList.setItems(flights);
+					});
+				}
+			});
+		}
+	}
+	
+	/**
+	 * A row of the airports list, whose checkbox shows and hides the airport on the map
+	 */
+	private class AirportCheckbox extends Checkbox {
+		
+		private Airport airport;
+		
+		AirportCheckbox() {
+			addItemListener((ie) -> {
+				if (airport == null) return;
+				airport.toggleActive();
+				if (airport.isActive()) map.addModel(airport);
+				else map.removeModel(airport);
+				killer.userAction();
+				map.repaint();
+			});
+		}
+		
+		void show(Airport airport) {
+			this.airport = airport;
+			setLabel(airport.toString());
+			setState(airport.isActive());
+		}
 	}
 	
 	/**
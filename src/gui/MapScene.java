@@ -4,78 +4,222 @@ import java.awt.Canvas;
 import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Rectangle;
+import java.awt.image.BufferStrategy;
+import java.awt.image.BufferedImage;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseMotionAdapter;
+import java.awt.event.MouseWheelEvent;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntFunction;
 
-import data.InitialData;
 import data.model.Airport;
-import data.model.Flight;
 import data.model.Model;
-import helper.SimulationClock;
+import helper.ViewTransform;
 import logic.Simulation;
+import logic.SimulationFrame;
 
 
 /**
  * This class displays Models on a map.
  * 
  * <p> Handles Model selection and "flashing"
+ * 
+ * <p> The map is drawn by its own render thread into a BufferStrategy. Other threads only
+ * request a frame, which never blocks them. The flights come from the SimulationFrame the
+ * simulation last published, which never changes, so the simulation and the render
+ * thread don't share any lock.
+ * 
+ * <p> Airports don't move, so they are kept apart from the other models and drawn once
+ * into a cached background image. The image is only redrawn when the airports change or
+ * the canvas is resized, and every frame blits it before painting the moving models.
+ * 
+ * <p> Airports and flights are indexed in SpatialGrids, which are used to find the
+ * clicked airport, the models inside the dragged rectangle, and the flights to paint.
+ * 
+ * <p> The mouse wheel zooms and dragging with the right or middle button pans the map,
+ * through a ViewTransform. When zoomed out over dense areas, the flights are drawn as
+ * density cells of the flight grid and the airport tags are hidden. Flights in conflict
+ * are circled in red at any zoom.
  */
 public class MapScene extends Canvas {
 	
 	private MainWindow parent;
 	public Simulation simulation;
-	ArrayList<Model> modelsToPaint = new ArrayList<>();
-	ArrayList<Model> bgModels = new ArrayList<>();
+	LinkedHashSet<Model> bgModels = new LinkedHashSet<>();
 	private final Object modelsLock = new Object();
+	private volatile Thread renderer;
+	private final AtomicBoolean frameRequested = new AtomicBoolean();
+	// Frames are drawn at this rate while the simulation runs, to move the flights smoothly
+	private static final long FRAME_NANOS = 1_000_000_000L / 60;
+	// Airports drawn by the render thread, redrawn when invalid or of the wrong size
+	private BufferedImage background;
+	private boolean backgroundValid;
+	private ViewTransform backgroundView;
+	// Indexes of the airports, built when needed, and of the flights, built every frame
+	private static final int GRID_CELLS = 128;
+	private ModelIndex airportIndex;
+	private volatile ModelIndex flightIndex = ModelIndex.of(new Model[0]);
+	// Positions of the flights of the frame and the ones on screen, reused by the render thread
+	private float[] flightX = new float[0], flightY = new float[0];
+	private int[] visible = new int[0];
+	private int visibleCount;
+	// Above these numbers of visible models, flights are drawn as density cells and tags are hidden
+	private static final int MAX_FLIGHTS = 4000;
+	private static final int MAX_LABELS = 300;
+	private volatile ViewTransform view = new ViewTransform(1, 1);
+	// Models inside the last dragged rectangle
+	private volatile List<Model> boxSelection = Collections.emptyList();
 	Model selectedModel = null;
     ScheduledExecutorService service = Executors.newSingleThreadScheduledExecutor();
     ScheduledFuture<?> flashTask;
-    Rectangle r;
+    volatile Rectangle r;
     int px;
     int py;
-	double scale;
+    boolean panning;
 	
 	public MapScene(MainWindow parent) {
 		this.parent = parent;
 		addSelectModelListener();
 	}
 	
-	public void addModel(Model m) {
+	/**
+	 * Displays the airport, in the background
+	 */
+	public void addModel(Airport a) {
 		synchronized (modelsLock) {
-			modelsToPaint.add(m);
+			if (bgModels.add(a)) airportsChanged();
 		}
+		paintTick();
 	}
 	
-	public void removeModel(Model m) {
+	public void removeModel(Airport a) {
 		synchronized (modelsLock) {
-			modelsToPaint.remove(m);
+			if (bgModels.remove(a)) airportsChanged();
 		}
+		paintTick();
 	}
 	
 	public void clearModels() {
 		synchronized (modelsLock) {
-			modelsToPaint.clear();
+			bgModels.clear();
+			airportsChanged();
 		}
+		boxSelection = Collections.emptyList();
+		paintTick();
 	}
 	
 	public void loadAirports() {
 		synchronized (modelsLock) {
-			for (Airport a : InitialData.getAirports()) {
-				modelsToPaint.add(a);
+			for (Airport a : parent.data.getAirports()) {
+				bgModels.add(a);
+			}
+			airportsChanged();
+		}
+		paintTick();
+	}
+	
+	// Called with the lock held
+	private void airportsChanged() {
+		backgroundValid = false;
+		airportIndex = null;
+	}
+	
+	private ModelIndex airportIndex() {
+		synchronized (modelsLock) {
+			if (airportIndex == null) {
+				airportIndex = ModelIndex.of(bgModels.toArray(new Model[0]));
+			}
+			return airportIndex;
+		}
+	}
+	
+	/**
+	 * A grid of models that finds them by their index
+	 */
+	private static final class ModelIndex {
+		
+		final SpatialGrid grid;
+		final IntFunction<? extends Model> models;
+		
+		ModelIndex(SpatialGrid grid, IntFunction<? extends Model> models) {
+			this.grid = grid;
+			this.models = models;
+		}
+		
+		static ModelIndex of(Model[] models) {
+			return new ModelIndex(SpatialGrid.of(models, GRID_CELLS), i -> models[i]);
+		}
+		
+		/**
+		 * Adds the models in the box to the list
+		 */
+		void query(double x0, double y0, double x1, double y1, List<Model> result) {
+			grid.query(x0, y0, x1, y1, i -> result.add(models.apply(i)));
+		}
+	}
+	
+	/**
+	 * @return the view of the map, fitted to the current size of the canvas
+	 */
+	public ViewTransform getView() {
+		synchronized (modelsLock) {
+			if (view.getWidth() != getWidth() || view.getHeight() != getHeight()) {
+				view = view.withSize(getWidth(), getHeight());
 			}
+			return view;
 		}
 	}
 	
-	public ArrayList<Model> getDisplayed() {
+	private void setView(ViewTransform view) {
 		synchronized (modelsLock) {
-			return modelsToPaint;
+			this.view = view;
+		}
+		paintTick();
+	}
+	
+	/**
+	 * Creates the buffers and starts the render thread once the canvas is displayable
+	 */
+	@Override
+	public void addNotify() {
+		super.addNotify();
+		createBufferStrategy(2);
+		renderer = new Thread(this::renderLoop, "MapScene renderer");
+		renderer.setDaemon(true);
+		renderer.start();
+	}
+	
+	@Override
+	public void removeNotify() {
+		if (renderer != null) {
+			renderer.interrupt();
+			try {
+				renderer.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			renderer = null;
 		}
+		super.removeNotify();
+	}
+	
+	// The buffers are drawn completely, so the canvas must not be cleared first
+	@Override
+	public void update(Graphics g) {
+		paint(g);
 	}
 	
 	@Override
@@ -84,40 +228,207 @@ public class MapScene extends Canvas {
 	}
 	
 	/**
-	 * Paints the map
+	 * Requests a new frame from the render thread and returns immediately, without
+	 * taking any lock. Requests that come in before the frame is drawn are merged into it.
 	 */
 	public void paintTick() {
-		Graphics g = this.getGraphics();
-	    int width = getWidth();
-	    
-	    SimulationClock timer = null;
-	    if (simulation != null) timer = simulation.timer;
+		if (frameRequested.compareAndSet(false, true)) {
+			Thread t = renderer;
+			if (t != null) LockSupport.unpark(t);
+		}
+	}
+	
+	/**
+	 * Draws a frame whenever one is requested, and at the display rate while the
+	 * simulation clock runs
+	 */
+	private void renderLoop() {
+		long nextFrame = System.nanoTime();
+		while (true) {
+			while (!frameRequested.getAndSet(false)) {
+				if (Thread.interrupted()) return;
+				if (isAnimating()) {
+					long delay = nextFrame - System.nanoTime();
+					if (delay <= 0) break;
+					LockSupport.parkNanos(this, delay);
+				}
+				else LockSupport.park(this);
+			}
+			if (Thread.currentThread().isInterrupted()) return;
+			nextFrame = System.nanoTime() + FRAME_NANOS;
+			render();
+		}
+	}
+	
+	private boolean isAnimating() {
+		Simulation s = simulation;
+		return s != null && s.timer.isRunning();
+	}
+	
+	/**
+	 * Paints the map into the back buffer and shows it, again if the buffer was lost
+	 */
+	private void render() {
+		BufferStrategy strategy = getBufferStrategy();
+		if (strategy == null) return;
+		
+	    // The frame is moved to the current time, in arrays only this thread uses
+	    SimulationFrame frame = SimulationFrame.EMPTY;
+	    Simulation s = simulation;
+	    if (s != null) frame = s.getFrame();
+	    int count = frame.size();
+	    if (flightX.length < count) {
+	    	flightX = new float[Math.max(count, 2 * flightX.length)];
+	    	flightY = new float[flightX.length];
+	    }
+	    float[] flightX = this.flightX, flightY = this.flightY;
+	    if (s != null) frame.positions(s.timer.getPreciseTime(), flightX, flightY);
 	    
-	    scale = (double) width / 180.0;
+	    ViewTransform view = getView();
+	    SpatialGrid grid = new SpatialGrid(flightX, flightY, count, GRID_CELLS);
+	    flightIndex = new ModelIndex(grid, frame::getFlight);
 	    
-	    drawBackground(g, timer);
-
+	    // Only the flights on screen are painted, with a margin for their size
+	    double margin = 2 * view.getMarkerSize() / view.getScale();
+	    double x0 = view.gridX(0) - margin, y0 = view.gridY(0) + margin;
+	    double x1 = view.gridX(view.getWidth()) + margin, y1 = view.gridY(view.getHeight()) - margin;
+	    boolean density = grid.countCells(x0, y0, x1, y1) > MAX_FLIGHTS;
+	    visibleCount = 0;
+	    if (!density) grid.query(x0, y0, x1, y1, this::addVisible);
+	    List<Model> boxed = boxSelection;
+	    Set<Model> boxedSet = boxed.isEmpty() ? Collections.emptySet() : new HashSet<>(boxed);
+	    Model selected = selectedModel;
+	    updateBackground(view, selected);
 	    synchronized (modelsLock) {
-		    for (Model m : modelsToPaint) {
-	    		m.paint(g, timer);
+	    	if (!bgModels.contains(selected)) selected = null;
 	    }
-	    }
-
+	    
+		do {
+			do {
+				Graphics g = strategy.getDrawGraphics();
+				try {
+					drawBackground(g);
+					if (density) drawDensity(g, grid, view, x0, y0, x1, y1);
+					for (int i = 0; i < visibleCount; i++) {
+						int id = visible[i];
+						frame.getFlight(id).paintAt(g, view, flightX[id], flightY[id]);
+					}
+					drawConflicts(g, frame, view, flightX, flightY);
+					g.setColor(Color.BLUE);
+					for (Model m : boxed) {
+						if (m instanceof Airport) drawBoxed(g, view, m.getGridX(), m.getGridY());
+					}
+					// Flights that have arrived since they were selected are not shown anymore
+					if (!boxedSet.isEmpty()) {
+						for (int i = 0; i < visibleCount; i++) {
+							int id = visible[i];
+							if (boxedSet.contains(frame.getFlight(id))) drawBoxed(g, view, flightX[id], flightY[id]);
+						}
+					}
+					// The selection flashes, so it is painted over its cached image
+					if (selected != null) selected.paint(g, view);
+				} finally {
+					g.dispose();
+				}
+			} while (strategy.contentsRestored());
+			strategy.show();
+		} while (strategy.contentsLost());
 	}
 	
-	private void drawBackground(Graphics g, SimulationClock timer) {
-	    g.setColor(Color.BLUE);
-	    g.setColor(getBackground());
-	    g.fillRect(0, 0, getWidth(), getHeight());
-	    
+	private void addVisible(int id) {
+		if (visibleCount == visible.length) {
+			visible = Arrays.copyOf(visible, Math.max(16, 2 * visibleCount));
+		}
+		visible[visibleCount++] = id;
+	}
+	
+	/**
+	 * Circles the flights in conflict, also when the flights are drawn as density cells
+	 */
+	private static void drawConflicts(Graphics g, SimulationFrame frame, ViewTransform view, float[] x, float[] y) {
+		int size = 4 * view.getMarkerSize();
+		g.setColor(Color.RED);
+		for (int i = 0; i < frame.size(); i++) {
+			if (!frame.isInConflict(i)) continue;
+			int sx = view.screenX(x[i]), sy = view.screenY(y[i]);
+			if (sx < -size || sy < -size || sx > view.getWidth() + size || sy > view.getHeight() + size) continue;
+			g.drawOval(sx - size, sy - size, 2 * size, 2 * size);
+		}
+	}
+	
+	private static void drawBoxed(Graphics g, ViewTransform view, double gx, double gy) {
+		int x = view.screenX(gx), y = view.screenY(gy);
+		int size = 3 * view.getMarkerSize();
+		g.drawRect(x - size, y - size, 2 * size, 2 * size);
+	}
+	
+	/**
+	 * Redraws the cached airports if they changed or the view was zoomed, panned or resized
+	 * @param selected The selected airport, left out because it is painted every frame
+	 */
+	private void updateBackground(ViewTransform view, Model selected) {
+		int width = view.getWidth(), height = view.getHeight();
+		if (width <= 0 || height <= 0) return;
+		synchronized (modelsLock) {
+			if (backgroundValid && backgroundView == view) return;
+			backgroundValid = true;
+		}
+		backgroundView = view;
+		
+		ArrayList<Model> airports = new ArrayList<>();
+		// Airports left of the view can have their tag in it
+		double margin = 2 * view.getMarkerSize() / view.getScale();
+		airportIndex().query(view.gridX(-50) - margin, view.gridY(0) + margin,
+				view.gridX(width) + margin, view.gridY(height) - margin, airports);
+		boolean labels = airports.size() <= MAX_LABELS;
+		
+		if (background == null || background.getWidth() != width || background.getHeight() != height) {
+			background = getGraphicsConfiguration().createCompatibleImage(width, height);
+		}
+		Graphics g = background.createGraphics();
+		try {
+			g.setColor(getBackground());
+			g.fillRect(0, 0, width, height);
+			for (Model m : airports) {
+				if (m != selected) ((Airport) m).paint(g, view, labels);
+			}
+		} finally {
+			g.dispose();
+		}
+	}
+	
+	/**
+	 * Draws the flights in the box as one square per grid cell, darker for more flights
+	 */
+	private void drawDensity(Graphics g, SpatialGrid grid, ViewTransform view,
+			double x0, double y0, double x1, double y1) {
+		int cx0 = grid.cellIndex(x0), cx1 = grid.cellIndex(x1);
+		int cy0 = grid.cellIndex(y1), cy1 = grid.cellIndex(y0);
+		for (int cy = cy0; cy <= cy1; cy++) {
+			int top = view.screenY(grid.cellMin(cy + 1)), bottom = view.screenY(grid.cellMin(cy));
+			for (int cx = cx0; cx <= cx1; cx++) {
+				int count = grid.count(cx, cy);
+				if (count == 0) continue;
+				int left = view.screenX(grid.cellMin(cx)), right = view.screenX(grid.cellMin(cx + 1));
+				int alpha = Math.min(255, 60 + 24 * (31 - Integer.numberOfLeadingZeros(count)));
+				g.setColor(new Color(0, 0, 255, alpha));
+				g.fillRect(left, top, Math.max(1, right - left), Math.max(1, bottom - top));
+			}
+		}
+	}
+	
+	private void drawBackground(Graphics g) {
+		if (background != null) g.drawImage(background, 0, 0, null);
+		else {
+			g.setColor(getBackground());
+			g.fillRect(0, 0, getWidth(), getHeight());
+		}
 
+	    Rectangle r = this.r;
 	    if (r != null) {
 	    	g.setColor(Color.BLUE);
 	    	g.drawRect(r.x, r.y, r.width, r.height);
-	    	System.out.println("drawing rect");
 	    }
-	    
-		
 	}
 
 	/**
@@ -125,6 +436,10 @@ public class MapScene extends Canvas {
 	 * and schedules it at the service scheduler.
 	 */
 	private void flashModel() {
+		// The previous selection goes back into the cached airports
+		synchronized (modelsLock) {
+			backgroundValid = false;
+		}
 	    if (flashTask != null && !flashTask.isDone()) {
 	        flashTask.cancel(true);
 	    }
@@ -149,50 +464,76 @@ public class MapScene extends Canvas {
 		addMouseListener(new MouseAdapter() {
 			@Override
 			public void mouseClicked(MouseEvent e) {
-				for(Model m : modelsToPaint) {
-					if (m instanceof Airport) {
-						Airport port = (Airport) m;
-						int px = port.getX();
-						int py = port.getY();
-						int scaleApr = (int)scale;
-						if (port.isInside(e.getX(), e.getY()))
-						{
-							parent.killer.userAction();
-							if (selectedModel != null && ((Airport)selectedModel).isFlashing()) {
-								((Airport)selectedModel).toggleFlash();
-							}
-							if (selectedModel != port) {
-								selectedModel = port;
-								parent.killerPauseActions[1] = true;
-							}
-							else {
-								unselectModel();
-							}
-							parent.killerRefresh();
+				if (e.getButton() != MouseEvent.BUTTON1) return;
+				// Airports are hit up to 2 marker sizes around their position
+				ViewTransform view = getView();
+				double x = view.gridX(e.getX()), y = view.gridY(e.getY());
+				double radius = 2 * view.getMarkerSize() / view.getScale();
+				ArrayList<Model> candidates = new ArrayList<>();
+				airportIndex().query(x - radius, y - radius, x + radius, y + radius, candidates);
+				for(Model m : candidates) {
+					Airport port = (Airport) m;
+					if (port.isInside(e.getX(), e.getY(), view))
+					{
+						parent.killer.userAction();
+						if (selectedModel != null && ((Airport)selectedModel).isFlashing()) {
+							((Airport)selectedModel).toggleFlash();
 						}
-						flashModel();
-				    }
+						if (selectedModel != port) {
+							selectedModel = port;
+							parent.killerPauseActions[1] = true;
+						}
+						else {
+							unselectModel();
+						}
+						parent.killerRefresh();
+						break;
+					}
 				}
+				flashModel();
 			}
 			
 			@Override
 			public void mousePressed(MouseEvent e) {
 				px = e.getX(); py = e.getY();
+				panning = e.getButton() != MouseEvent.BUTTON1;
+				if (!panning) boxSelection = Collections.emptyList();
 			}
 			
 			@Override
 			public void mouseReleased(MouseEvent e) {
+				// Selects every airport and flight inside the dragged rectangle
+				Rectangle box = r;
+				if (box != null) {
+					ViewTransform view = getView();
+					double x0 = view.gridX(box.x), y0 = view.gridY(box.y);
+					double x1 = view.gridX(box.x + box.width), y1 = view.gridY(box.y + box.height);
+					ArrayList<Model> selection = new ArrayList<>();
+					airportIndex().query(x0, y0, x1, y1, selection);
+					flightIndex.query(x0, y0, x1, y1, selection);
+					boxSelection = selection;
+				}
 				r = null;
 				repaint();
 			}
 		});
 		
+		addMouseWheelListener((MouseWheelEvent e) -> {
+			double factor = Math.pow(1.25, -e.getPreciseWheelRotation());
+			setView(getView().zoomAt(e.getX(), e.getY(), factor));
+		});
+		
 		addMouseMotionListener(new MouseMotionAdapter() {
 			
 			@Override
 			public void mouseDragged(MouseEvent e) {
 				int x = e.getX();
 				int y = e.getY();
+				if (panning) {
+					setView(getView().panBy(x - px, y - py));
+					px = x; py = y;
+					return;
+				}
 				int realx = Math.min(x, px);
 				int realy = Math.min(y, py);
 				int width = Math.abs(x - px);
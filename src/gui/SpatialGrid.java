@@ -0,0 +1,136 @@
+package gui;
+
+import java.util.function.IntConsumer;
+
+import data.model.Model;
+
+/**
+ * This class is a uniform grid over the map's coordinate space, [-90, 90] on both axes,
+ * that finds the points in a box without going through all of them. Points are identified
+ * by their index in the arrays the grid was built from.
+ *
+ * <p> The points are sorted by cell once, when the grid is built, and the grid is not
+ * changed afterwards, so it can be read by any thread. Moving points are indexed by
+ * building a new grid.
+ */
+class SpatialGrid {
+
+	private static final double MIN = -90, SIZE = 180;
+
+	private final int cells;
+	private final double cellSize;
+	// Points of cell i are ids[cellStart[i]] to ids[cellStart[i + 1] - 1]
+	private final int[] cellStart;
+	private final int[] ids;
+	private final float[] itemX, itemY;
+
+	/**
+	 * @param x The x coordinates of the points, copied by the grid
+	 * @param y The y coordinates of the points, copied by the grid
+	 * @param count Number of points in the arrays
+	 * @param cells Number of cells along each axis
+	 */
+	SpatialGrid(float[] x, float[] y, int count, int cells) {
+		this.cells = cells;
+		this.cellSize = SIZE / cells;
+
+		int[] cellOf = new int[count];
+		cellStart = new int[cells * cells + 1];
+		for (int i = 0; i < count; i++) {
+			cellOf[i] = cell(x[i], y[i]);
+			cellStart[cellOf[i] + 1]++;
+		}
+		for (int c = 0; c < cells * cells; c++) {
+			cellStart[c + 1] += cellStart[c];
+		}
+
+		ids = new int[count];
+		itemX = new float[count];
+		itemY = new float[count];
+		int[] next = new int[cells * cells];
+		System.arraycopy(cellStart, 0, next, 0, next.length);
+		for (int i = 0; i < count; i++) {
+			int slot = next[cellOf[i]]++;
+			ids[slot] = i;
+			itemX[slot] = x[i];
+			itemY[slot] = y[i];
+		}
+	}
+
+	/**
+	 * @return a grid of the models' positions, identified by their index in the array
+	 */
+	static SpatialGrid of(Model[] models, int cells) {
+		float[] x = new float[models.length], y = new float[models.length];
+		for (int i = 0; i < models.length; i++) {
+			x[i] = (float) models[i].getGridX();
+			y[i] = (float) models[i].getGridY();
+		}
+		return new SpatialGrid(x, y, models.length, cells);
+	}
+
+	/**
+	 * @return the column or row of the cell that contains the coordinate, clamped to the grid
+	 */
+	public int cellIndex(double v) {
+		int i = (int) ((v - MIN) / cellSize);
+		return i < 0 ? 0 : i >= cells ? cells - 1 : i;
+	}
+
+	/**
+	 * @return the lowest coordinate of the column or row
+	 */
+	public double cellMin(int index) {
+		return MIN + index * cellSize;
+	}
+
+	private int cell(double x, double y) {
+		return cellIndex(y) * cells + cellIndex(x);
+	}
+
+	public int size() {
+		return ids.length;
+	}
+
+	/**
+	 * @return the number of points in the cell
+	 */
+	public int count(int cx, int cy) {
+		int c = cy * cells + cx;
+		return cellStart[c + 1] - cellStart[c];
+	}
+
+	/**
+	 * @return the number of points in the cells that the box overlaps, at least the number
+	 * of points in the box, found without looking at the points
+	 */
+	public int countCells(double x0, double y0, double x1, double y1) {
+		int cx0 = cellIndex(Math.min(x0, x1)), cx1 = cellIndex(Math.max(x0, x1));
+		int cy0 = cellIndex(Math.min(y0, y1)), cy1 = cellIndex(Math.max(y0, y1));
+		int count = 0;
+		for (int cy = cy0; cy <= cy1; cy++) {
+			count += cellStart[cy * cells + cx1 + 1] - cellStart[cy * cells + cx0];
+		}
+		return count;
+	}
+
+	/**
+	 * Gives the index of every point in the box to the consumer, in no particular order
+	 */
+	public void query(double x0, double y0, double x1, double y1, IntConsumer result) {
+		int cx0 = cellIndex(Math.min(x0, x1)), cx1 = cellIndex(Math.max(x0, x1));
+		int cy0 = cellIndex(Math.min(y0, y1)), cy1 = cellIndex(Math.max(y0, y1));
+		double minX = Math.min(x0, x1), maxX = Math.max(x0, x1);
+		double minY = Math.min(y0, y1), maxY = Math.max(y0, y1);
+		for (int cy = cy0; cy <= cy1; cy++) {
+			for (int c = cy * cells + cx0, end = cy * cells + cx1; c <= end; c++) {
+				for (int i = cellStart[c]; i < cellStart[c + 1]; i++) {
+					if (itemX[i] >= minX && itemX[i] <= maxX && itemY[i] >= minY && itemY[i] <= maxY) {
+						result.accept(ids[i]);
+					}
+				}
+			}
+		}
+	}
+
+}
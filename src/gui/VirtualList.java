@@ -0,0 +1,178 @@
+package gui;
+
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.Panel;
+import java.awt.Scrollbar;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.MouseWheelEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Predicate;
+
+/**
+ * This class is a scrollable list that only creates components for the rows that fit
+ * in it, and shows the items that are scrolled to in them.
+ *
+ * <p> Adding an item only updates the scrollbar, and the row that shows it if it is
+ * visible, so the list stays fast with many items and doesn't hold a native peer for
+ * each of them. Items that don't match the filter are left out.
+ *
+ * <p> The list must only be used on the event dispatch thread.
+ */
+class VirtualList<T> extends Panel {
+
+	/**
+	 * Creates the components of the rows and shows the items in them
+	 */
+	interface RowFactory<T> {
+
+		Component create();
+
+		/**
+		 * Shows the item in a row made by create, which may have shown another item before
+		 */
+		void bind(Component row, T item);
+	}
+
+	private final RowFactory<T> factory;
+	private final int rowHeight;
+	private final ArrayList<T> items = new ArrayList<>();
+	private Predicate<? super T> filter = item -> true;
+	// Indexes in items of the items that match the filter
+	private int[] shown = new int[16];
+	private int shownCount;
+	// Index in shown of the item in the first row
+	private int first;
+
+	private final ArrayList<Component> rows = new ArrayList<>();
+	private final Scrollbar scrollbar = new Scrollbar(Scrollbar.VERTICAL);
+
+	/**
+	 * @param factory Creates the rows and shows the items in them
+	 * @param rowHeight Height of a row in pixels
+	 */
+	VirtualList(RowFactory<T> factory, int rowHeight) {
+		super(null);
+		this.factory = factory;
+		this.rowHeight = rowHeight;
+		add(scrollbar);
+		scrollbar.addAdjustmentListener(e -> scrollTo(e.getValue()));
+		addMouseWheelListener((MouseWheelEvent e) -> scrollTo(first + e.getUnitsToScroll()));
+		addComponentListener(new ComponentAdapter() {
+			@Override
+			public void componentResized(ComponentEvent e) {
+				layoutRows();
+			}
+		});
+	}
+
+	@Override
+	public Dimension getPreferredSize() {
+		return new Dimension(200, 10 * rowHeight);
+	}
+
+	/**
+	 * Replaces all the items of the list
+	 */
+	public void setItems(Collection<? extends T> newItems) {
+		items.clear();
+		items.addAll(newItems);
+		refilter();
+	}
+
+	/**
+	 * Adds an item at the end of the list
+	 */
+	public void addItem(T item) {
+		items.add(item);
+		if (filter.test(item)) {
+			show(items.size() - 1);
+			updateScrollbar();
+			bindRow(shownCount - 1 - first);
+		}
+	}
+
+	/**
+	 * Shows only the items that match the filter, scrolled to the top
+	 */
+	public void setFilter(Predicate<? super T> filter) {
+		this.filter = filter;
+		refilter();
+	}
+
+	private void refilter() {
+		shownCount = 0;
+		for (int i = 0; i < items.size(); i++) {
+			if (filter.test(items.get(i))) show(i);
+		}
+		first = 0;
+		updateScrollbar();
+		bindRows();
+	}
+
+	private void show(int index) {
+		if (shownCount == shown.length) {
+			shown = Arrays.copyOf(shown, shownCount * 2);
+		}
+		shown[shownCount++] = index;
+	}
+
+	private void scrollTo(int index) {
+		index = Math.max(0, Math.min(index, shownCount - rows.size()));
+		if (index == first) return;
+		first = index;
+		scrollbar.setValue(first);
+		bindRows();
+	}
+
+	private void updateScrollbar() {
+		int visible = Math.max(1, rows.size());
+		first = Math.max(0, Math.min(first, shownCount - visible));
+		scrollbar.setValues(first, visible, 0, Math.max(shownCount, visible));
+		scrollbar.setBlockIncrement(visible);
+	}
+
+	/**
+	 * Creates the rows that fit in the list, and places them and the scrollbar
+	 */
+	private void layoutRows() {
+		int width = getWidth(), height = getHeight();
+		int barWidth = scrollbar.getPreferredSize().width;
+		int count = Math.max(1, height / rowHeight);
+		while (rows.size() < count) {
+			Component row = factory.create();
+			rows.add(row);
+			add(row);
+		}
+		while (rows.size() > count) {
+			remove(rows.remove(rows.size() - 1));
+		}
+		for (int i = 0; i < count; i++) {
+			rows.get(i).setBounds(0, i * rowHeight, width - barWidth, rowHeight);
+		}
+		scrollbar.setBounds(width - barWidth, 0, barWidth, height);
+		updateScrollbar();
+		bindRows();
+	}
+
+	private void bindRows() {
+		for (int i = 0; i < rows.size(); i++) {
+			bindRow(i);
+		}
+	}
+
+	private void bindRow(int i) {
+		if (i < 0 || i >= rows.size()) return;
+		Component row = rows.get(i);
+		int index = first + i;
+		if (index < shownCount) {
+			factory.bind(row, items.get(shown[index]));
+			row.setVisible(true);
+		}
+		else row.setVisible(false);
+	}
+
+}
@@ -37,9 +37,12 @@ public class InputDialog extends Dialog {
     private final TextField flightStartHourField = new TextField(3);
     private final TextField flightStartMinuteField = new TextField(3);
     private final TextField flightDurationField = new TextField(5);
+    
+    private final InitialData data;
 
     public InputDialog(MainWindow parent) {
         super(parent, "Add Airports and Flights", true);
+        this.data = parent.data;
         
         setLayout(new GridLayout(0, 2, 10, 5));
 
@@ -185,15 +188,14 @@ public class InputDialog extends Dialog {
             			new ErrorDialog(this, "Coordinates need to be numbers between -90 and 90!");
             		}
             		else {
-            			Airport port = new Airport(parent.map.getWidth() / 180.0, Integer.parseInt(x),
+            			Airport port = new Airport(Integer.parseInt(x),
             					Integer.parseInt(y), 1, name, tag);
-            			if (!ErrorHandler.isUniqueTag(port)) {
+            			if (!ErrorHandler.isUniqueTag(port, data)) {
             				new ErrorDialog(this, "Tag must be an unique identifier!");
             			}
             			else {
-                			InitialData.addAirport(port);
+                			data.addAirport(port);
                 			parent.map.addModel(port);
-            				parent.updateAirportsAndFlights();
             				clearAirportFields();
             				updateChoose();
             			}
@@ -209,9 +211,9 @@ public class InputDialog extends Dialog {
         			new ErrorDialog(this, "No Airports are selected. Chances are you have not added them yet.");
         		else {
             		String startAirportTag = flightStartAirportField.getSelectedItem().substring(1,4);
-            		Airport start = InitialData.findByTag(startAirportTag);
+            		Airport start = data.findByTag(startAirportTag);
             		String endAirportTag = flightEndAirportField.getSelectedItem().substring(1,4);
-            		Airport end = InitialData.findByTag(endAirportTag);
+            		Airport end = data.findByTag(endAirportTag);
             		try {
             			int hours = Integer.parseUnsignedInt(flightStartHourField.getText());
             			int minutes = Integer.parseUnsignedInt(flightStartMinuteField.getText());
@@ -224,9 +226,8 @@ public class InputDialog extends Dialog {
                 			}
                 			else {
                        		Flight f = new Flight(1, start, end, hours, minutes, duration); 
-                    			InitialData.addFlight(f);
+                    			data.addFlight(f);
                     			clearFlightFields();
-                				parent.updateAirportsAndFlights();
                 			}
             			}
             		}
@@ -272,7 +273,7 @@ public class InputDialog extends Dialog {
     }
     private void updateChoose() {
     		flightStartAirportField.removeAll();
-        for (Airport i : InitialData.getAirports()) {
+        for (Airport i : data.getAirports()) {
             flightStartAirportField.add("[" + i.getTag() + "] " + i.getName());
         }
         updateEnd();
@@ -280,7 +281,7 @@ public class InputDialog extends Dialog {
     
     private void updateEnd() {
 		flightEndAirportField.removeAll();
-        for (Airport i : InitialData.getAirports()) {
+        for (Airport i : data.getAirports()) {
             flightEndAirportField.add("[" + i.getTag() + "] " + i.getName() );
         }
         	removeStartFromEnd();
@@ -0,0 +1,239 @@
+package helper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import data.model.Airport;
+import data.model.Flight;
+import error.ErrorHandler;
+import error.ScheduleFormatException;
+
+/**
+ * This class saves and loads the Airport and Flight data in a compact binary format,
+ * which is read into memory in one go and used without any parsing.
+ *
+ * <p> The file is laid out as follows, all numbers are big-endian ints unless noted:
+ * <ul>
+ * <li> Header: magic, version, string count, string bytes, airport count, flight count
+ * <li> String table: the end offset of every string, followed by the UTF-8 bytes of all
+ * strings, padded to a multiple of 4. Names and tags are interned, so every distinct
+ * string is stored once.
+ * <li> Airport records: tag string, name string, x, y
+ * <li> Flight records: start airport index, end airport index, start time in minutes since
+ * the start of the simulation as a long, duration
+ * </ul>
+ */
+public class BinarySnapshot {
+
+	public static final String EXTENSION = ".fmap";
+
+	private static final int MAGIC = 0x464D4150; // "FMAP"
+	private static final int VERSION = 2;
+	private static final int HEADER_SIZE = 6 * 4;
+	private static final int AIRPORT_RECORD = 4 * 4;
+	private static final int FLIGHT_RECORD = 5 * 4;
+
+	/**
+	 * Writes the airports and flights to the file
+	 * @param filePath Path of the snapshot file, overwritten if it exists
+	 * @param airports Airports to save
+	 * @param flights Flights to save, their airports should be in airports
+	 */
+	public static void save(String filePath, List<Airport> airports, List<Flight> flights) throws IOException {
+		// Interns the names and tags
+		Map<String, Integer> stringIds = new HashMap<>();
+		ArrayList<byte[]> strings = new ArrayList<>();
+		int stringBytes = 0;
+		int[] tagIds = new int[airports.size()];
+		int[] nameIds = new int[airports.size()];
+		Map<Airport, Integer> airportIds = new IdentityHashMap<>();
+		for (int i = 0; i < airports.size(); i++) {
+			Airport a = airports.get(i);
+			airportIds.put(a, i);
+			for (int field = 0; field < 2; field++) {
+				String s = field == 0 ? a.getTag() : a.getName();
+				Integer id = stringIds.get(s);
+				if (id == null) {
+					id = strings.size();
+					stringIds.put(s, id);
+					byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+					strings.add(bytes);
+					stringBytes += bytes.length;
+				}
+				if (field == 0) tagIds[i] = id;
+				else nameIds[i] = id;
+			}
+		}
+
+		try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+			buffer.putInt(MAGIC).putInt(VERSION).putInt(strings.size()).putInt(stringBytes)
+					.putInt(airports.size()).putInt(flights.size());
+
+			int offset = 0;
+			for (byte[] s : strings) {
+				offset += s.length;
+				ensure(channel, buffer, 4);
+				buffer.putInt(offset);
+			}
+			for (byte[] s : strings) {
+				for (int written = 0; written < s.length; ) {
+					ensure(channel, buffer, 1);
+					int n = Math.min(buffer.remaining(), s.length - written);
+					buffer.put(s, written, n);
+					written += n;
+				}
+			}
+			ensure(channel, buffer, 4);
+			for (int pad = padding(stringBytes); pad > 0; pad--) {
+				buffer.put((byte) 0);
+			}
+
+			for (int i = 0; i < airports.size(); i++) {
+				Airport a = airports.get(i);
+				ensure(channel, buffer, AIRPORT_RECORD);
+				buffer.putInt(tagIds[i]).putInt(nameIds[i]).putInt(a.getVx()).putInt(a.getVy());
+			}
+			for (Flight f : flights) {
+				Integer start = airportIds.get(f.getStartAirport());
+				Integer end = airportIds.get(f.getEndAirport());
+				if (start == null || end == null) {
+					throw new IOException("Flight " + f + " has an airport that isn't saved");
+				}
+				ensure(channel, buffer, FLIGHT_RECORD);
+				buffer.putInt(start).putInt(end).putLong(f.getStartTime()).putInt(f.getDuration());
+			}
+			flush(channel, buffer);
+		}
+	}
+
+	private static void ensure(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+		if (buffer.remaining() < bytes) flush(channel, buffer);
+	}
+
+	private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	private static int padding(int bytes) {
+		return (4 - bytes % 4) % 4;
+	}
+
+	/**
+	 * Reads the airports and flights of the file into the given containers, which are only
+	 * filled if the file is valid. The records are checked like the rows of a
+	 * CSV file, as the file may have been damaged or edited.
+	 * @param filePath Path of the snapshot file
+	 * @param airports Container the airports are added to
+	 * @param flights Container the flights are added to
+	 * @throws ScheduleFormatException if the file is not a valid snapshot
+	 */
+	public static void load(String filePath, List<Airport> airports, List<Flight> flights)
+			throws IOException, ScheduleFormatException {
+		try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < HEADER_SIZE) {
+				throw new ScheduleFormatException("The file is not a flight snapshot.");
+			}
+			if (size > Integer.MAX_VALUE) {
+				throw new ScheduleFormatException("The snapshot is too large to be read.");
+			}
+			// Read rather than mapped, as a mapping holds on to the file until it is collected
+			ByteBuffer buffer = ByteBuffer.allocate((int) size);
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer) < 0) {
+					throw new ScheduleFormatException("The snapshot was cut short while it was read.");
+				}
+			}
+			if (buffer.getInt(0) != MAGIC) {
+				throw new ScheduleFormatException("The file is not a flight snapshot.");
+			}
+			int version = buffer.getInt(4);
+			if (version != VERSION) {
+				throw new ScheduleFormatException("The snapshot was saved by an unsupported version.");
+			}
+			int stringCount = buffer.getInt(8);
+			int stringBytes = buffer.getInt(12);
+			int airportCount = buffer.getInt(16);
+			int flightCount = buffer.getInt(20);
+			long stringsStart = HEADER_SIZE + 4L * stringCount;
+			long airportsStart = stringsStart + stringBytes + padding(stringBytes);
+			long flightsStart = airportsStart + (long) AIRPORT_RECORD * airportCount;
+			if (stringCount < 0 || stringBytes < 0 || airportCount < 0 || flightCount < 0
+					|| flightsStart + (long) FLIGHT_RECORD * flightCount != size) {
+				throw new ScheduleFormatException("The snapshot is damaged, its size doesn't match its header.");
+			}
+
+			String[] strings = new String[stringCount];
+			byte[] bytes = new byte[stringBytes];
+			buffer.get((int) stringsStart, bytes);
+			int from = 0;
+			for (int i = 0; i < stringCount; i++) {
+				int to = buffer.getInt(HEADER_SIZE + 4 * i);
+				if (to < from || to > stringBytes) {
+					throw new ScheduleFormatException("The snapshot is damaged, its string table is invalid.");
+				}
+				strings[i] = new String(bytes, from, to - from, StandardCharsets.UTF_8);
+				from = to;
+			}
+
+			Airport[] airportContainer = new Airport[airportCount];
+			Map<String, Airport> tags = new HashMap<>();
+			for (int i = 0, pos = (int) airportsStart; i < airportCount; i++, pos += AIRPORT_RECORD) {
+				int tag = buffer.getInt(pos);
+				int name = buffer.getInt(pos + 4);
+				if (tag < 0 || tag >= stringCount || name < 0 || name >= stringCount) {
+					throw new ScheduleFormatException("The snapshot is damaged, an airport has an invalid name.");
+				}
+				if (!ErrorHandler.isValidTagLength(strings[tag])) {
+					throw new ScheduleFormatException("The snapshot is damaged, an airport tag isn't three letters.");
+				}
+				int x = buffer.getInt(pos + 8), y = buffer.getInt(pos + 12);
+				if (!ErrorHandler.isValidCoordinate(x) || !ErrorHandler.isValidCoordinate(y)) {
+					throw new ScheduleFormatException("The snapshot is damaged, an airport's coordinates aren't between -90 and 90.");
+				}
+				Airport a = new Airport(x, y, 1, strings[name], strings[tag]);
+				if (!ErrorHandler.isUniqueTagCSV(a, tags)) {
+					throw new ScheduleFormatException("The snapshot is damaged, airport tags aren't unique.");
+				}
+				tags.put(a.getTag(), a);
+				airportContainer[i] = a;
+			}
+
+			Flight[] flightContainer = new Flight[flightCount];
+			for (int i = 0, pos = (int) flightsStart; i < flightCount; i++, pos += FLIGHT_RECORD) {
+				int start = buffer.getInt(pos);
+				int end = buffer.getInt(pos + 4);
+				long startTime = buffer.getLong(pos + 8);
+				int duration = buffer.getInt(pos + 16);
+				if (start < 0 || start >= airportCount || end < 0 || end >= airportCount
+						|| startTime < 0 || startTime / 60 > Integer.MAX_VALUE || duration <= 0) {
+					throw new ScheduleFormatException("The snapshot is damaged, a flight is invalid.");
+				}
+				flightContainer[i] = new Flight(1, airportContainer[start], airportContainer[end],
+						(int) (startTime / 60), (int) (startTime % 60), duration);
+			}
+
+			airports.addAll(Arrays.asList(airportContainer));
+			flights.addAll(Arrays.asList(flightContainer));
+		} catch (java.nio.file.NoSuchFileException e) {
+			throw new java.io.FileNotFoundException(filePath);
+		}
+	}
+
+}
@@ -0,0 +1,719 @@
+package helper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import data.model.Airport;
+import data.model.Flight;
+import error.ErrorHandler;
+import error.ScheduleFormatException;
+
+/**
+ * This class reads Airport and Flight rows from a CSV file, without depending on
+ * the GUI, so it can be used both by the File menu and by the headless simulation.
+ *
+ * <p> The file is streamed through a reusable byte buffer and the fields are parsed in
+ * place: numbers are read straight from the bytes and the tags of flight rows are
+ * looked up without creating strings, so only the airports and flights themselves are
+ * allocated. Fields may be quoted the way FileSystem writes them.
+ */
+public class CSVParser {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+	private static final int MAX_FIELDS = 7;
+
+	private static final byte[] AIRPORT = "Airport".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] FLIGHT = "Flight".getBytes(StandardCharsets.US_ASCII);
+
+	/**
+	 * This class reports how much was read and how fast
+	 */
+	public static class LoadReport {
+		private final long rows;
+		private final long bytes;
+		private final long nanos;
+
+		LoadReport(long rows, long bytes, long nanos) {
+			this.rows = rows;
+			this.bytes = bytes;
+			this.nanos = nanos;
+		}
+
+		public long getRows() {
+			return rows;
+		}
+
+		public long getBytes() {
+			return bytes;
+		}
+
+		public long getNanos() {
+			return nanos;
+		}
+
+		public double getRowsPerSecond() {
+			if (nanos == 0) return 0;
+			return rows * 1e9 / nanos;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("Loaded %d rows (%.1f MB) in %d ms, %.0f rows/s",
+					rows, bytes / 1e6, nanos / 1_000_000, getRowsPerSecond());
+		}
+	}
+
+	/**
+	 * Maps three letter ASCII tags, packed into an int, to airports, so tags can be
+	 * looked up straight from the bytes of a row.
+	 */
+	private static class TagIndex {
+		private int[] keys = new int[64];
+		private Airport[] values = new Airport[64];
+		private int size;
+
+		static int code(byte[] buf, int from, int to) {
+			if (to - from != 3) return 0;
+			int b0 = buf[from], b1 = buf[from + 1], b2 = buf[from + 2];
+			if (b0 <= 0 || b1 <= 0 || b2 <= 0) return 0;
+			return b0 << 16 | b1 << 8 | b2;
+		}
+
+		Airport get(int code) {
+			int mask = keys.length - 1;
+			for (int i = mix(code) & mask; keys[i] != 0; i = (i + 1) & mask) {
+				if (keys[i] == code) return values[i];
+			}
+			return null;
+		}
+
+		void put(int code, Airport a) {
+			if (2 * (size + 1) > keys.length) grow();
+			int mask = keys.length - 1;
+			int i = mix(code) & mask;
+			while (keys[i] != 0 && keys[i] != code) i = (i + 1) & mask;
+			if (keys[i] == 0) size++;
+			keys[i] = code;
+			values[i] = a;
+		}
+
+		private void grow() {
+			int[] oldKeys = keys;
+			Airport[] oldValues = values;
+			keys = new int[oldKeys.length * 2];
+			values = new Airport[oldKeys.length * 2];
+			size = 0;
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] != 0) put(oldKeys[i], oldValues[i]);
+			}
+		}
+
+		private static int mix(int code) {
+			return code * 0x9E3779B1 >>> 7;
+		}
+	}
+
+	/**
+	 * Flight rows of a chunk whose airports are looked up after all the airports are known.
+	 * Tags that can't be packed into a code are kept as strings, referenced by a negative code.
+	 */
+	private static class PendingFlights {
+		int size;
+		int[] start = new int[64], end = new int[64];
+		int[] hour = new int[64], minute = new int[64], duration = new int[64];
+		int[] row = new int[64];
+		long[] line = new long[64];
+		ArrayList<String> tags = new ArrayList<>();
+
+		void add(int startCode, int endCode, int h, int m, int d, int r, long l) {
+			if (size == start.length) {
+				int n = size * 2;
+				start = Arrays.copyOf(start, n);
+				end = Arrays.copyOf(end, n);
+				hour = Arrays.copyOf(hour, n);
+				minute = Arrays.copyOf(minute, n);
+				duration = Arrays.copyOf(duration, n);
+				row = Arrays.copyOf(row, n);
+				line = Arrays.copyOf(line, n);
+			}
+			start[size] = startCode;
+			end[size] = endCode;
+			hour[size] = h;
+			minute[size] = m;
+			duration[size] = d;
+			row[size] = r;
+			line[size] = l;
+			size++;
+		}
+	}
+
+	// Files larger than this are split into chunks that are parsed in parallel
+	private static final long PARALLEL_THRESHOLD = 16 << 20;
+	private static final long CHUNK_SIZE = 32 << 20;
+
+	/*
+	 * States of scanRow's quoting rules, used to find the rows the chunks start at: a quote
+	 * only opens a field whose first non blank byte it is, and only closes a quoted field.
+	 * NEXT gives the state after each byte.
+	 */
+	private static final int FIELD_START = 0, UNQUOTED = 1, QUOTED = 2, QUOTE = 3, AFTER_QUOTE = 4;
+	private static final int STATES = 5;
+	private static final byte[][] NEXT = new byte[STATES][256];
+	static {
+		for (int b = 0; b < 256; b++) {
+			boolean end = b == ',' || b == '\n';
+			NEXT[FIELD_START][b] = (byte) (end || b <= ' ' ? FIELD_START : b == '"' ? QUOTED : UNQUOTED);
+			NEXT[UNQUOTED][b] = (byte) (end ? FIELD_START : UNQUOTED);
+			NEXT[QUOTED][b] = (byte) (b == '"' ? QUOTE : QUOTED);
+			// Two quotes in a quoted field are an escaped quote
+			NEXT[QUOTE][b] = (byte) (b == '"' ? QUOTED : end ? FIELD_START : AFTER_QUOTE);
+			NEXT[AFTER_QUOTE][b] = (byte) (end ? FIELD_START : AFTER_QUOTE);
+		}
+	}
+
+	// State of the row being parsed, the field bounds are indexes into buf
+	private byte[] buf = new byte[BUFFER_SIZE];
+	private int[] fieldStart = new int[MAX_FIELDS];
+	private int[] fieldEnd = new int[MAX_FIELDS];
+	private boolean[] fieldQuoted = new boolean[MAX_FIELDS];
+	private int fieldCount;
+	private int rowLines;
+	private long line = 1;
+	private int rows;
+
+	private ArrayList<Airport> airportContainer = new ArrayList<>();
+	private ArrayList<Flight> flightContainer = new ArrayList<>();
+	private Map<String, Airport> tempAirports = new HashMap<>();
+	private TagIndex tagIndex = new TagIndex();
+
+	// Only used when the file is parsed in chunks, rows are counted from the start of the chunk
+	private boolean chunked;
+	private int[] airportRows = new int[64];
+	private long[] airportLines = new long[64];
+	private PendingFlights pending;
+	private ScheduleFormatException error;
+	private long errorRow = Long.MAX_VALUE;
+
+	private CSVParser(boolean chunked) {
+		this.chunked = chunked;
+		if (chunked) pending = new PendingFlights();
+	}
+
+	/**
+	 * Reads the whole file into the given containers, which are only filled if
+	 * every row is valid. Large files are parsed in parallel, with the same result
+	 * and the same error as if they were parsed row by row.
+	 * @param filePath Path of the CSV file
+	 * @param airports Container the airports are added to
+	 * @param flights Container the flights are added to
+	 * @return how many rows were read and how long it took
+	 * @throws ScheduleFormatException if a row is not valid, with a message for the user
+	 */
+	public static LoadReport parse(String filePath, List<Airport> airports, List<Flight> flights)
+			throws IOException, ScheduleFormatException {
+		long startTime = System.nanoTime();
+		long rows, bytes;
+		try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+			bytes = channel.size();
+			if (bytes > PARALLEL_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1) {
+				rows = parseChunks(channel, bytes, airports, flights);
+			} else {
+				CSVParser parser = new CSVParser(false);
+				rows = parser.read(channel, 0, bytes);
+				airports.addAll(parser.airportContainer);
+				flights.addAll(parser.flightContainer);
+			}
+		} catch (java.nio.file.NoSuchFileException e) {
+			throw new java.io.FileNotFoundException(filePath);
+		}
+		return new LoadReport(rows, bytes, System.nanoTime() - startTime);
+	}
+
+	/**
+	 * Parses the file in chunks that start at row boundaries, in three passes:
+	 * the chunks are parsed in parallel with the flights left unresolved, the airports
+	 * are merged in file order, and then the flights of every chunk are resolved in parallel.
+	 * @return the number of rows that aren't empty
+	 */
+	private static long parseChunks(FileChannel channel, long size, List<Airport> airports,
+			List<Flight> flights) throws IOException, ScheduleFormatException {
+		long[] bounds = splitRows(channel, size);
+		int chunks = bounds.length - 1;
+		CSVParser[] parsers = new CSVParser[chunks];
+		try {
+			IntStream.range(0, chunks).parallel().forEach(k -> {
+				CSVParser parser = new CSVParser(true);
+				try {
+					parser.read(channel, bounds[k], bounds[k + 1]);
+				} catch (ScheduleFormatException e) {
+					parser.error = e;
+					parser.errorRow = position(k, parser.rows);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+				parsers[k] = parser;
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+
+		// First error in file order, rows after it don't matter
+		ScheduleFormatException error = null;
+		long errorRow = Long.MAX_VALUE;
+		for (CSVParser parser : parsers) {
+			if (parser.error != null) {
+				error = parser.error;
+				errorRow = parser.errorRow;
+				break;
+			}
+		}
+
+		// Merges the airports in file order, checking that their tags are unique
+		CSVParser merged = new CSVParser(false);
+		Map<Airport, Long> airportRows = new IdentityHashMap<>();
+		merge:
+		for (int k = 0; k < chunks; k++) {
+			CSVParser parser = parsers[k];
+			for (int i = 0; i < parser.airportContainer.size(); i++) {
+				long row = position(k, parser.airportRows[i]);
+				if (row >= errorRow) break merge;
+				Airport a = parser.airportContainer.get(i);
+				if (!ErrorHandler.isUniqueTagCSV(a, merged.tempAirports)) {
+					error = new ScheduleFormatException("Airport tags must be unique identifiers! Please check the input.",
+							parser.airportLines[i]);
+					errorRow = row;
+					break merge;
+				}
+				merged.addAirport(a);
+				airportRows.put(a, row);
+			}
+		}
+
+		// Resolves the flights of every chunk against the merged airports
+		long lastRow = errorRow;
+		IntStream.range(0, chunks).parallel().forEach(k -> parsers[k].resolveFlights(k, merged, airportRows, lastRow));
+		for (CSVParser parser : parsers) {
+			if (parser.errorRow < errorRow) {
+				error = parser.error;
+				errorRow = parser.errorRow;
+			}
+		}
+
+		if (error != null) {
+			// Lines were counted from the start of each chunk
+			long lineOffset = 0;
+			for (int k = 0; k < chunks && position(k, 0) <= errorRow; k++) {
+				if (position(k + 1, 0) > errorRow) {
+					throw new ScheduleFormatException(error.getReason(), error.getLine() + lineOffset);
+				}
+				lineOffset += parsers[k].line - 1;
+			}
+			throw error;
+		}
+
+		long rows = 0;
+		airports.addAll(merged.airportContainer);
+		for (CSVParser parser : parsers) {
+			flights.addAll(parser.flightContainer);
+			rows += parser.rows;
+		}
+		return rows;
+	}
+
+	/**
+	 * Orders rows of different chunks the way they are ordered in the file
+	 */
+	private static long position(int chunk, int row) {
+		return (long) chunk << 32 | row;
+	}
+
+	/**
+	 * Splits the file into chunks of about CHUNK_SIZE bytes that start at row boundaries.
+	 * Every chunk is scanned in parallel from each state of the quoting rules, so the state
+	 * a chunk starts in is known from the one before it, and its first row starts after the
+	 * first newline outside a quoted field.
+	 * @return the offsets the chunks start at, followed by the size of the file
+	 */
+	private static long[] splitRows(FileChannel channel, long size) throws IOException {
+		int chunks = (int) Math.max(2, Math.min(4096, (size + CHUNK_SIZE - 1) / CHUNK_SIZE));
+		long[] naive = new long[chunks + 1];
+		for (int k = 0; k <= chunks; k++) {
+			naive[k] = size * k / chunks;
+		}
+		byte[][] ends = new byte[chunks][];
+		try {
+			IntStream.range(0, chunks).parallel().forEach(k -> {
+				try {
+					ends[k] = endStates(channel, naive[k], naive[k + 1]);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+
+		long[] bounds = new long[chunks + 1];
+		bounds[chunks] = size;
+		int state = FIELD_START;
+		for (int k = 1; k < chunks; k++) {
+			state = ends[k - 1][state];
+			bounds[k] = Math.max(bounds[k - 1], nextRow(channel, naive[k], size, state));
+		}
+		return bounds;
+	}
+
+	/**
+	 * @return the state at the end of the given part of the file, for each state it starts in
+	 */
+	private static byte[] endStates(FileChannel channel, long from, long to) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		byte[] states = {FIELD_START, UNQUOTED, QUOTED, QUOTE, AFTER_QUOTE};
+		for (long pos = from; pos < to; ) {
+			buffer.clear().limit((int) Math.min(BUFFER_SIZE, to - pos));
+			int n = channel.read(buffer, pos);
+			if (n < 0) break;
+			byte[] bytes = buffer.array();
+			for (int s = 0; s < STATES; s++) {
+				int state = states[s];
+				for (int i = 0; i < n; i++) {
+					state = NEXT[state][bytes[i] & 0xff];
+				}
+				states[s] = (byte) state;
+			}
+			pos += n;
+		}
+		return states;
+	}
+
+	/**
+	 * @param state State of the quoting rules at from
+	 * @return the offset after the first newline that ends a row at or after from
+	 */
+	private static long nextRow(FileChannel channel, long from, long size, int state) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		for (long pos = from; pos < size; ) {
+			buffer.clear();
+			int n = channel.read(buffer, pos);
+			if (n < 0) break;
+			byte[] bytes = buffer.array();
+			for (int i = 0; i < n; i++) {
+				if (bytes[i] == '\n' && state != QUOTED) return pos + i + 1;
+				state = NEXT[state][bytes[i] & 0xff];
+			}
+			pos += n;
+		}
+		return size;
+	}
+
+	/**
+	 * Streams the given part of the channel through the buffer, parsing every complete row
+	 * @param from Offset the first row starts at
+	 * @param to Offset after the last row
+	 * @return the number of rows that aren't empty
+	 */
+	private long read(FileChannel channel, long from, long to) throws IOException, ScheduleFormatException {
+		long filePos = from;
+		int pos = 0, limit = 0;
+		boolean eof = false;
+		while (!eof || pos < limit) {
+			int end = scanRow(pos, limit, eof);
+			if (end < 0) {
+				if (eof) break;
+				// Moves the incomplete row to the front and fills the rest of the buffer
+				int remaining = limit - pos;
+				if (remaining == buf.length) {
+					buf = Arrays.copyOf(buf, buf.length * 2);
+				} else {
+					System.arraycopy(buf, pos, buf, 0, remaining);
+				}
+				pos = 0;
+				limit = remaining;
+				int n = -1;
+				if (filePos < to) {
+					ByteBuffer target = ByteBuffer.wrap(buf, limit, (int) Math.min(buf.length - limit, to - filePos));
+					n = channel.read(target, filePos);
+				}
+				if (n < 0) eof = true;
+				else {
+					limit += n;
+					filePos += n;
+				}
+				continue;
+			}
+			if (parseRow()) rows++;
+			line += rowLines;
+			pos = end < limit ? end + 1 : end;
+		}
+		return rows;
+	}
+
+	private void addAirport(Airport a) {
+		airportContainer.add(a);
+		tempAirports.put(a.getTag(), a);
+		byte[] tagBytes = a.getTag().getBytes(StandardCharsets.UTF_8);
+		int code = TagIndex.code(tagBytes, 0, tagBytes.length);
+		if (code != 0) tagIndex.put(code, a);
+	}
+
+	/**
+	 * Creates the flights of the chunk that come before lastRow, looking their airports up
+	 * in the merged airports, and records the first flight whose airport can't be found
+	 */
+	private void resolveFlights(int chunk, CSVParser merged, Map<Airport, Long> airportRows, long lastRow) {
+		PendingFlights p = pending;
+		for (int i = 0; i < p.size; i++) {
+			long row = position(chunk, p.row[i]);
+			if (row >= lastRow) return;
+			Airport start = merged.findAirport(p.start[i], p.tags);
+			Airport end = merged.findAirport(p.end[i], p.tags);
+			if (start == null || end == null || airportRows.get(start) > row || airportRows.get(end) > row) {
+				error = new ScheduleFormatException("Flight row contains an Airport that can't be found! Flight must be declared after the airport, please check the input.",
+						p.line[i]);
+				errorRow = row;
+				return;
+			}
+			flightContainer.add(new Flight(1, start, end, p.hour[i], p.minute[i], p.duration[i]));
+		}
+	}
+
+	/**
+	 * @param code Packed tag, or a negative index into tags
+	 */
+	private Airport findAirport(int code, ArrayList<String> tags) {
+		if (code < 0) return tempAirports.get(tags.get(-code - 1));
+		return tagIndex.get(code);
+	}
+
+	/**
+	 * Finds the end of the row starting at from and the bounds of its fields
+	 * @return the index of the newline ending the row, limit if the last row of the file
+	 * ends without one, or -1 if the row is not complete in the buffer
+	 */
+	private int scanRow(int from, int limit, boolean eof) {
+		fieldCount = 0;
+		rowLines = 1;
+		int i = from;
+		while (true) {
+			// Start of a field, quoted if its first non blank byte is a quote
+			int start = i;
+			while (i < limit && buf[i] != '\n' && buf[i] != ',' && (buf[i] & 0xff) <= ' ') i++;
+			boolean quoted = i < limit && buf[i] == '"';
+			int end;
+			if (quoted) {
+				start = ++i;
+				while (true) {
+					if (i >= limit) return eof ? finishField(start, limit, true, limit) : -1;
+					if (buf[i] == '"') {
+						if (i + 1 >= limit && !eof) return -1;
+						if (i + 1 < limit && buf[i + 1] == '"') {
+							i += 2;
+							continue;
+						}
+						break;
+					}
+					if (buf[i] == '\n') rowLines++;
+					i++;
+				}
+				end = i++;
+				while (i < limit && buf[i] != '\n' && buf[i] != ',') i++;
+			} else {
+				while (i < limit && buf[i] != '\n' && buf[i] != ',') i++;
+				end = i;
+			}
+			if (i >= limit && !eof) return -1;
+			addField(start, end, quoted);
+			if (i >= limit || buf[i] == '\n') return i;
+			i++;
+		}
+	}
+
+	private int finishField(int start, int end, boolean quoted, int rowEnd) {
+		addField(start, end, quoted);
+		return rowEnd;
+	}
+
+	private void addField(int start, int end, boolean quoted) {
+		if (fieldCount < MAX_FIELDS) {
+			fieldStart[fieldCount] = start;
+			fieldEnd[fieldCount] = end;
+			fieldQuoted[fieldCount] = quoted;
+		}
+		fieldCount++;
+	}
+
+	/**
+	 * Trims the field the same way as String.trim, unless it is quoted
+	 */
+	private void trim(int field) {
+		if (fieldQuoted[field]) return;
+		int s = fieldStart[field], e = fieldEnd[field];
+		while (s < e && (buf[s] & 0xff) <= ' ') s++;
+		while (e > s && (buf[e - 1] & 0xff) <= ' ') e--;
+		fieldStart[field] = s;
+		fieldEnd[field] = e;
+	}
+
+	/**
+	 * Validates the row that was scanned and adds its Airport or Flight
+	 * @return false if the row is empty
+	 */
+	private boolean parseRow() throws ScheduleFormatException {
+		for (int f = 0; f < Math.min(fieldCount, MAX_FIELDS); f++) {
+			trim(f);
+		}
+		if (fieldCount == 1 && fieldStart[0] == fieldEnd[0] && !fieldQuoted[0]) return false;
+
+		if (fieldEquals(0, AIRPORT)) {
+			if (fieldCount != 5) {
+				throw error("Airport row must have 5 fields!");
+			}
+			String name = fieldString(1);
+			String tag = fieldString(2);
+			if (!ErrorHandler.isValidTagLength(tag)) {
+				throw error("Airport tags must be three letters. Please check the input!");
+			}
+			tag = tag.toUpperCase();
+			int x, y;
+			try {
+				x = parseInt(3, true);
+				y = parseInt(4, true);
+			} catch (NumberFormatException e) {
+				throw error("Invalid coordinates in an Airport row! Please check the input.");
+			}
+			if (x < -90 || x > 90 || y < -90 || y > 90) {
+				throw error("Coordinates must be integers between -90 and 90! Please check the input");
+			}
+			Airport a = new Airport(x, y, 1, name, tag);
+			if (chunked) {
+				// Uniqueness is checked when the chunks are merged
+				int i = airportContainer.size();
+				if (i == airportRows.length) {
+					airportRows = Arrays.copyOf(airportRows, i * 2);
+					airportLines = Arrays.copyOf(airportLines, i * 2);
+				}
+				airportRows[i] = rows;
+				airportLines[i] = line;
+				airportContainer.add(a);
+				return true;
+			}
+			if (!ErrorHandler.isUniqueTagCSV(a, tempAirports)) {
+				throw error("Airport tags must be unique identifiers! Please check the input.");
+			}
+			addAirport(a);
+		} else if (fieldEquals(0, FLIGHT)) {
+			if (fieldCount != 6) {
+				throw error("Flight row must have 6 fields. Please check the input.");
+			}
+			int startHour, startMinute, duration;
+			try {
+				startHour = parseInt(3, false);
+				startMinute = parseInt(4, false);
+				if (startMinute >= 60 || startMinute < 0) {
+					throw error("Start minutes must be between 0 and 59. Please check if the input is correct.");
+				}
+				duration = parseInt(5, false);
+				if (duration <= 0) {
+					throw error("Duration must be greater than 0. Please check if the input is correct.");
+				}
+			} catch (NumberFormatException e) {
+				throw error("Flight row contains invalid start time or duration! Please check the input.");
+			}
+			if (chunked) {
+				pending.add(pendingCode(1), pendingCode(2), startHour, startMinute, duration, rows, line);
+				return true;
+			}
+			Airport start = findAirport(1);
+			Airport end = findAirport(2);
+			if (start == null || end == null) {
+				throw error("Flight row contains an Airport that can't be found! Flight must be declared after the airport, please check the input.");
+			}
+			flightContainer.add(new Flight(1, start, end, startHour, startMinute, duration));
+		} else {
+			throw error("Row type is not Airport or Flight. Please check the input.");
+		}
+		return true;
+	}
+
+	private ScheduleFormatException error(String message) {
+		return new ScheduleFormatException(message, line);
+	}
+
+	/**
+	 * @return the packed tag in the given field, or a negative reference to it as a string
+	 */
+	private int pendingCode(int field) {
+		if (!fieldQuoted[field]) {
+			int code = TagIndex.code(buf, fieldStart[field], fieldEnd[field]);
+			if (code != 0) return code;
+		}
+		pending.tags.add(fieldString(field));
+		return -pending.tags.size();
+	}
+
+	private boolean fieldEquals(int field, byte[] expected) {
+		int s = fieldStart[field];
+		if (fieldEnd[field] - s != expected.length) return false;
+		for (int i = 0; i < expected.length; i++) {
+			if (buf[s + i] != expected[i]) return false;
+		}
+		return true;
+	}
+
+	private String fieldString(int field) {
+		String s = new String(buf, fieldStart[field], fieldEnd[field] - fieldStart[field], StandardCharsets.UTF_8);
+		if (fieldQuoted[field]) s = s.replace("\"\"", "\"");
+		return s;
+	}
+
+	/**
+	 * Looks up the airport of a flight row by the tag in the given field, without
+	 * creating a string when the tag is three ASCII characters
+	 */
+	private Airport findAirport(int field) {
+		if (!fieldQuoted[field]) {
+			int code = TagIndex.code(buf, fieldStart[field], fieldEnd[field]);
+			if (code != 0) return tagIndex.get(code);
+		}
+		return tempAirports.get(fieldString(field));
+	}
+
+	/**
+	 * Parses the field as a decimal integer the way Integer.parseInt does, or as a
+	 * non-negative one if signed is false
+	 */
+	private int parseInt(int field, boolean signed) {
+		int i = fieldStart[field], end = fieldEnd[field];
+		if (i == end) throw new NumberFormatException();
+		boolean negative = false;
+		if (buf[i] == '-' || buf[i] == '+') {
+			negative = buf[i] == '-';
+			if (negative && !signed) throw new NumberFormatException();
+			if (++i == end) throw new NumberFormatException();
+		}
+		long value = 0;
+		for (; i < end; i++) {
+			int digit = buf[i] - '0';
+			if (digit < 0 || digit > 9) throw new NumberFormatException();
+			value = value * 10 + digit;
+			if (value > (long) Integer.MAX_VALUE + 1) throw new NumberFormatException();
+		}
+		if (negative) value = -value;
+		if (value > Integer.MAX_VALUE) throw new NumberFormatException();
+		return (int) value;
+	}
+
+}
@@ -4,23 +4,22 @@ import java.awt.Dialog;
 import java.awt.Label;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
-import java.io.BufferedReader;
-import java.io.FileReader;
+import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
 import java.awt.Frame;
 
 import data.InitialData;
 import data.model.Airport;
 import data.model.Flight;
-import error.ErrorHandler;
+import error.ScheduleFormatException;
 import gui.MainWindow;
 
 /**
- * This class handles saving to and loading from a CSV file the Airport and Flight data 
+ * This class handles saving to and loading from a CSV file or a binary snapshot
+ * the Airport and Flight data 
  */
 public class FileSystem {
     private static void showErrorDialog(String message) {
@@ -35,19 +34,34 @@ public class FileSystem {
         dialog.setVisible(true);
     }
 
-    public static boolean saveToCSV(String filePath) {
-        try (FileWriter writer = new FileWriter(filePath)) {
-            // Save airports
-            for (Airport a : InitialData.getAirports()) {
-                writer.write(String.format("Airport,%s,%s,%d,%d\n",
-                        escapeCSV(a.getName()), escapeCSV(a.getTag()), a.getX(), a.getY()));
+    public static boolean saveToCSV(String filePath, InitialData data) {
+        try (Writer writer = new BufferedWriter(new FileWriter(filePath), 1 << 16)) {
+            // Save airports, with their grid coordinates
+            for (Airport a : data.getAirports()) {
+                writer.write("Airport,");
+                writer.write(escapeCSV(a.getName()));
+                writer.write(',');
+                writer.write(escapeCSV(a.getTag()));
+                writer.write(',');
+                writer.write(Integer.toString(a.getVx()));
+                writer.write(',');
+                writer.write(Integer.toString(a.getVy()));
+                writer.write('\n');
             }
 
             // Save flights
-            for (Flight f : InitialData.getFlights()) {
-                writer.write(String.format("Flight,%s,%s,%d,%d,%d\n",
-                        escapeCSV(f.getStartAirport().getTag()), escapeCSV(f.getEndAirport().getTag()),
-                        f.getHour(), f.getMinute	(), f.getDuration()));
+            for (Flight f : data.getFlights()) {
+                writer.write("Flight,");
+                writer.write(escapeCSV(f.getStartAirport().getTag()));
+                writer.write(',');
+                writer.write(escapeCSV(f.getEndAirport().getTag()));
+                writer.write(',');
+                writer.write(Long.toString(f.getHour()));
+                writer.write(',');
+                writer.write(Integer.toString(f.getMinute()));
+                writer.write(',');
+                writer.write(Integer.toString(f.getDuration()));
+                writer.write('\n');
             }
             return true;
         } catch (IOException e) {
@@ -56,105 +70,68 @@ public class FileSystem {
         }
     }
 
-    public static boolean loadFromCSV(String filePath, MainWindow owner) {
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-	        ArrayList<Airport> airportContainer = new ArrayList<>();
-	        ArrayList<Flight> flightContainer = new ArrayList<>();
-            Map<String, Airport> tempAirports = new HashMap<>();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.trim().isEmpty()) continue;
-                String[] parts = line.split(",", -1);
-
-                String type = parts[0].trim();
-                if ("Airport".equals(type)) {
-                    if (parts.length != 5) {
-                        showErrorDialog("Airport row must have 5 fields!");
-                        return false;
-                    }
-                    try {
-                        String name = parts[1].trim();
-                        String tag = parts[2].trim();
+    /**
+     * @return a report of how much was read and how fast, null if the file couldn't be loaded
+     */
+    public static String loadFromCSV(String filePath, MainWindow owner) {
+        ArrayList<Airport> airportContainer = new ArrayList<>();
+        ArrayList<Flight> flightContainer = new ArrayList<>();
+        CSVParser.LoadReport report;
+        try {
+            report = CSVParser.parse(filePath, airportContainer, flightContainer);
+        } catch (ScheduleFormatException e) {
+            showErrorDialog(e.getMessage());
+            return null;
+        } catch (java.io.FileNotFoundException e) {
+            showErrorDialog("File '" + filePath + "' can't be found.");
+            return null;
+        } catch (IOException e) {
+            showErrorDialog("Error while reading the file.");
+            return null;
+        }
+        owner.data.replace(airportContainer, flightContainer);
+        owner.map.clearModels();
+        owner.map.loadAirports();
+        owner.map.unselectModel();
+        return filePath + ": " + report;
+    }
 
-                        if (!ErrorHandler.isValidTagLength(tag)) {
-                        		showErrorDialog("Airport tags must be three letters. Please check the input!");
-                        		return false;
-                        }
-                        tag = tag.toUpperCase();
-                        
-                        int x = Integer.parseInt(parts[3].trim());
-                        int y = Integer.parseInt(parts[4].trim());
-                        if (x < -90 || x > 90 || y < -90 || y >90) {
-                        		showErrorDialog("Coordinates must be integers between -90 and 90! Please check the input");
-                        		return false;
-                        }
-                        Airport a = new Airport(owner.map.getWidth() / 180.0, x, y, 1, name, tag);
-                        if (!ErrorHandler.isUniqueTagCSV(a, airportContainer)) {
-                        		showErrorDialog("Airport tags must be unique identifiers! Please check the input.");
-                        		return false;
-                        }
-                        airportContainer.add(a);
-                        tempAirports.put(tag, a);
-                    } catch (NumberFormatException e) {
-                        showErrorDialog("Invalid coordinates in an Airport row! Please check the input.");
-                        return false;
-                    }
-                } else if ("Flight".equals(type)) {
-                    if (parts.length != 6) {
-                        showErrorDialog("Flight row must have 6 fields. Please check the input.");
-                        return false;
-                    }
-                    try {
-                        String startTag = parts[1].trim();
-                        String endTag = parts[2].trim();
-                        int startHour = Integer.parseUnsignedInt(parts[3].trim());
-                        int startMinute = Integer.parseUnsignedInt(parts[4].trim());
-                        if (startMinute >= 60 || startMinute < 0) {
-                        		showErrorDialog("Start minutes must be between 0 and 59. Please check if the input is correct.");
-                        		return false;
-                        }
-                        int duration = Integer.parseUnsignedInt(parts[5].trim());
-                        if (duration <= 0) {
-	                        	showErrorDialog("Duration must be greater than 0. Please check if the input is correct.");
-	                    		return false;
-                        }
-                        Airport start = tempAirports.get(startTag);
-                        Airport end = tempAirports.get(endTag);
-                        if (start == null || end == null) {
-                            showErrorDialog("Flight row contains an Airport that can't be found! Flight must be declared after the airport, please check the input.");
-                            return false;
-                        }
-                        Flight f = new Flight(1, start, end, startHour, startMinute, duration);
-                        flightContainer.add(f);
-                    } catch (NumberFormatException e) {
-                        showErrorDialog("Flight row contains invalid start time or duration! Please check the input.");
-                        return false;
-                    }
-                } else {
-                    showErrorDialog("Row type is not Airport or Flight. Please check the input.");
-                    return false;
-                }
-            }
-    		    InitialData.getAirports().clear();
-            InitialData.getFlights().clear();
-            for (Airport a : airportContainer) {
-            		InitialData.addAirport(a);
-            }
-            for (Flight f : flightContainer) {
-        			InitialData.addFlight(f);
-            }
-            owner.map.clearModels();
-            owner.map.loadAirports();
-            owner.map.unselectModel();
+    public static boolean saveToBinary(String filePath, InitialData data) {
+        try {
+            BinarySnapshot.save(filePath, data.getAirports(), data.getFlights());
             return true;
+        } catch (IOException e) {
+            showErrorDialog("Error occurred while saving!");
+            return false;
+        }
+    }
+
+    /**
+     * @return a report of how much was read and how fast, null if the file couldn't be loaded
+     */
+    public static String loadFromBinary(String filePath, MainWindow owner) {
+        ArrayList<Airport> airportContainer = new ArrayList<>();
+        ArrayList<Flight> flightContainer = new ArrayList<>();
+        long startTime = System.nanoTime();
+        try {
+            BinarySnapshot.load(filePath, airportContainer, flightContainer);
+        } catch (ScheduleFormatException e) {
+            showErrorDialog(e.getMessage());
+            return null;
         } catch (java.io.FileNotFoundException e) {
             showErrorDialog("File '" + filePath + "' can't be found.");
-            return false;
+            return null;
         } catch (IOException e) {
             showErrorDialog("Error while reading the file.");
-            return false;
+            return null;
         }
-        
+        long elapsed = (System.nanoTime() - startTime) / 1_000_000;
+        owner.data.replace(airportContainer, flightContainer);
+        owner.map.clearModels();
+        owner.map.loadAirports();
+        owner.map.unselectModel();
+        return String.format("%s: Loaded %d airports and %d flights in %d ms", filePath,
+                airportContainer.size(), flightContainer.size(), elapsed);
     }
 
     private static String escapeCSV(String field) {
@@ -0,0 +1,63 @@
+package helper;
+
+/**
+ * This class treats the coordinates of the map grid as longitude (x) and latitude (y) in
+ * degrees, and computes the great circles between them.
+ *
+ * <p> A point is also used as a unit vector from the center of the earth, with z towards
+ * the north pole. A great circle from A through B is then cos(a) A + sin(a) U, where U is
+ * the unit vector orthogonal to A in the plane of A and B, and a is the angle travelled.
+ */
+public final class GreatCircle {
+
+	// Mean radius of the earth in km
+	public static final double EARTH_RADIUS = 6371;
+
+	private GreatCircle() {}
+
+	/**
+	 * @return the angle between the two points seen from the center of the earth, in radians
+	 */
+	public static double angle(double lon1, double lat1, double lon2, double lat2) {
+		// Haversine formula, which stays precise for points close to each other
+		double sinLat = Math.sin(Math.toRadians(lat2 - lat1) / 2);
+		double sinLon = Math.sin(Math.toRadians(lon2 - lon1) / 2);
+		double h = sinLat * sinLat
+				+ Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * sinLon * sinLon;
+		return 2 * Math.asin(Math.min(1, Math.sqrt(h)));
+	}
+
+	/**
+	 * @return the distance between the two points along the surface of the earth, in km
+	 */
+	public static double distance(double lon1, double lat1, double lon2, double lat2) {
+		return EARTH_RADIUS * angle(lon1, lat1, lon2, lat2);
+	}
+
+	/**
+	 * Writes the unit vector of the point
+	 * @param v Array of at least 3 elements, the vector is written to v[0..2]
+	 */
+	public static void toVector(double lon, double lat, double[] v) {
+		double lambda = Math.toRadians(lon), phi = Math.toRadians(lat);
+		double cosPhi = Math.cos(phi);
+		v[0] = cosPhi * Math.cos(lambda);
+		v[1] = cosPhi * Math.sin(lambda);
+		v[2] = Math.sin(phi);
+	}
+
+	/**
+	 * @return the longitude in degrees of the point of the vector, which needn't be a unit vector
+	 */
+	public static double longitude(double x, double y) {
+		return Math.toDegrees(Math.atan2(y, x));
+	}
+
+	/**
+	 * @return the latitude in degrees of the point of the unit vector
+	 */
+	public static double latitude(double z) {
+		return Math.toDegrees(Math.asin(Math.max(-1, Math.min(1, z))));
+	}
+
+}
@@ -1,96 +1,198 @@
 package helper;
 
-import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
- * This class functions as a Simulation Clock, notifying the logic and the
- * painting to update on its ticks.
+ * This class functions as a Simulation Clock, ticking at a fixed rate and handing the
+ * ticks over to the simulation.
+ *
+ * <p> The ticks are scheduled at a fixed rate, so the time spent processing them doesn't
+ * delay the next ones. Ticks that fire while the simulation is still busy are counted as
+ * pending, and the simulation gets all of them at once the next time it asks, so no tick
+ * is lost.
+ *
+ * <p> The interval between ticks can be changed while the clock runs. An interval of 0
+ * makes the clock unbounded: it ticks whenever the simulation asks for a tick.
+ *
+ * <p> The time is a single count of minutes since the start of the simulation, which
+ * rolls over into the following days.
  */
-public class SimulationClock extends Thread {
+public class SimulationClock {
+
+	public static final int MINUTES_PER_DAY = 24 * 60;
 
 	private int tickInterval;
-	private int h, m;
+	private final int step;
+	// Minutes since the start of the simulation
+	private long time;
 	private boolean work;
-	
-	// Runnable clients that are notified when ticks happen
-	private ArrayList<Runnable> clients = new ArrayList<>();
-	
+	private boolean stopped;
+
+	// System.nanoTime of the last tick, and the fraction of a tick that had passed when paused
+	private long lastTickNanos = System.nanoTime();
+	private double pausedFraction;
+
+	// Ticks not taken by the simulation yet, all ticks, and ticks that fired while others were pending
+	private int pendingTicks;
+	private long firedTicks;
+	private long coalescedTicks;
+
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread t = new Thread(r, "SimulationClock");
+		t.setDaemon(true);
+		return t;
+	});
+	private ScheduledFuture<?> task;
+
 	/**
-	 * @param tickInterval The interval between the clock's ticks in ms
+	 * @param tickInterval The interval between the clock's ticks in ms, 0 for unbounded
+	 * @param step Simulation minutes that pass with each tick
 	 */
-	public SimulationClock(int tickInterval) {
+	public SimulationClock(int tickInterval, int step) {
 		this.tickInterval = tickInterval;
+		this.step = step;
 	}
-	
-	public int getHour() {
-		return h;
+
+	/**
+	 * Changes the interval between the ticks, the current tick keeps its progress
+	 * @param tickInterval The interval in ms, 0 for ticks as fast as the simulation takes them
+	 */
+	public synchronized void setTickInterval(int tickInterval) {
+		if (tickInterval < 0) throw new IllegalArgumentException("The tick interval can't be negative");
+		if (tickInterval == this.tickInterval) return;
+		boolean running = work;
+		pause();
+		this.tickInterval = tickInterval;
+		if (running) go();
+		notifyAll();
 	}
-	
-	public int getMinute() {
-		return m;
+
+	public synchronized boolean isUnbounded() {
+		return tickInterval == 0;
 	}
-	
-	public void addClient(Runnable r) {
-		clients.add(r);
+
+	/**
+	 * @return the current simulation time in minutes
+	 */
+	public synchronized long getTime() {
+		return time;
 	}
-	
-	
-	@Override
-	public void run() {
-		try {
-			while (!isInterrupted()) {
-				synchronized (this) {
-					while(!work) {
-						wait();
-					}
-				}
-
-				sleep(tickInterval);
-				if (!work) continue;
-				for (Runnable r : clients) {
-					synchronized (r) {
-						r.notify();
-					}
-				}
-				
-				m += 2;
-				if (m % 60 == 0) {
-					h++;
-					m = 0;
-				}
-			}
-		} catch (InterruptedException e) {}
-	}
-	
+
+	/**
+	 * @return the current simulation time in minutes, including the part of the
+	 * next tick that has already passed in real time
+	 */
+	public synchronized double getPreciseTime() {
+		return time + step * tickFraction();
+	}
+
+	private double tickFraction() {
+		if (!work) return pausedFraction;
+		if (tickInterval == 0) return 0;
+		double fraction = (System.nanoTime() - lastTickNanos) / (tickInterval * 1e6);
+		return Math.min(fraction, 1);
+	}
+
+	public synchronized boolean isRunning() {
+		return work;
+	}
+
+	/**
+	 * @return the number of ticks since the clock was created
+	 */
+	public synchronized long getFiredTicks() {
+		return firedTicks;
+	}
+
+	/**
+	 * @return the number of ticks that fired while the simulation hadn't taken the previous one
+	 */
+	public synchronized long getCoalescedTicks() {
+		return coalescedTicks;
+	}
+
+	private synchronized void tick() {
+		if (!work) return;
+		if (pendingTicks > 0) coalescedTicks++;
+		pendingTicks++;
+		firedTicks++;
+		time += step;
+		lastTickNanos = System.nanoTime();
+		notifyAll();
+	}
+
+	/**
+	 * Waits until the clock ticks and takes all the ticks that are pending
+	 * @return the number of ticks since the last call, at least 1
+	 * @throws InterruptedException if the thread is interrupted or the clock is stopped
+	 */
+	public synchronized int awaitTicks() throws InterruptedException {
+		while (pendingTicks == 0) {
+			if (stopped) throw new InterruptedException("The clock was stopped");
+			if (work && tickInterval == 0) tick();
+			else wait();
+		}
+		return pollTicks();
+	}
+
+	/**
+	 * Takes all the ticks that are pending without waiting, an unbounded clock ticks once
+	 * @return the number of ticks since the last call, 0 if there are none
+	 */
+	public synchronized int pollTicks() {
+		if (pendingTicks == 0 && work && tickInterval == 0) tick();
+		int ticks = pendingTicks;
+		pendingTicks = 0;
+		return ticks;
+	}
+
+	/**
+	 * Starts the ticks, the first one comes when the rest of the tick that was
+	 * interrupted by the last pause has passed
+	 */
 	public synchronized void go() {
+		if (work || stopped) return;
+		long interval = tickInterval * 1_000_000L;
+		long passed = (long) (pausedFraction * interval);
+		lastTickNanos = System.nanoTime() - passed;
 		work = true;
-		this.notify();
+		if (tickInterval > 0) {
+			task = scheduler.scheduleAtFixedRate(this::tick, interval - passed, interval, TimeUnit.NANOSECONDS);
+		}
+		notifyAll();
 	}
-	
+
 	public synchronized void pause() {
+		if (!work) return;
+		pausedFraction = tickFraction();
 		work = false;
+		if (task != null) task.cancel(false);
+		task = null;
 	}
-	
-	public synchronized void reset() {
-		m = h = 0;
+
+	/**
+	 * Stops the clock for good and wakes the threads waiting for ticks
+	 */
+	public synchronized void stop() {
+		pause();
+		stopped = true;
+		scheduler.shutdownNow();
+		notifyAll();
 	}
-	
+
 	/**
-	 * checks if the current tick is in an interval defined by the start time and duration
+	 * @return the simulation time formatted as its day and time of day
 	 */
-	public boolean isIntervalActive(int startHour, int startMinute, int duration) {
-	    // Calculate end time
-	    int totalStartMinutes = startHour * 60 + startMinute;
-	    int totalEndMinutes = totalStartMinutes + duration;
-	    
-	    int currentTotalMinutes = h * 60 + m;
-	   
-	    return currentTotalMinutes >= totalStartMinutes && currentTotalMinutes <= totalEndMinutes;
-	}
-	
+	public static String format(long time) {
+		return String.format("Day %d %dh:%02dm", time / MINUTES_PER_DAY + 1, time % MINUTES_PER_DAY / 60, time % 60);
+	}
+
 	@Override
-	public String toString() {
-		return String.format("%dh:%02dm", h, m);
+	public synchronized String toString() {
+		return format(time);
 	}
 
 }
@@ -0,0 +1,108 @@
+package helper;
+
+/**
+ * This class maps the map grid, [-90, 90] on both axes, to the pixels of the canvas that
+ * displays it, for a given zoom and center.
+ *
+ * <p> A transform never changes: zooming, panning and resizing return a new one, so a
+ * frame can be painted with the transform it started with.
+ */
+public final class ViewTransform {
+
+	public static final double MIN_ZOOM = 1, MAX_ZOOM = 64;
+
+	private final int width, height;
+	private final double zoom;
+	// Grid coordinates of the center of the canvas
+	private final double centerX, centerY;
+	private final double scale;
+
+	/**
+	 * @param width Width of the canvas, which shows the whole grid when not zoomed
+	 * @param height Height of the canvas
+	 */
+	public ViewTransform(int width, int height) {
+		this(width, height, MIN_ZOOM, 0, 0);
+	}
+
+	private ViewTransform(int width, int height, double zoom, double centerX, double centerY) {
+		this.width = width;
+		this.height = height;
+		this.zoom = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, zoom));
+		this.scale = width / 180.0 * this.zoom;
+		// The center stays where the visible area doesn't leave the grid
+		double halfWidth = width / 2.0 / scale, halfHeight = height / 2.0 / scale;
+		this.centerX = clamp(centerX, -90 + halfWidth, 90 - halfWidth);
+		this.centerY = clamp(centerY, -90 + halfHeight, 90 - halfHeight);
+	}
+
+	private static double clamp(double v, double min, double max) {
+		if (min > max) return 0;
+		return Math.max(min, Math.min(max, v));
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * @return the number of pixels per grid unit
+	 */
+	public double getScale() {
+		return scale;
+	}
+
+	/**
+	 * @return the size unit of the painted models in pixels, which doesn't grow with the
+	 * zoom so that dense areas spread out when zooming in
+	 */
+	public int getMarkerSize() {
+		return Math.max(1, (int) (width / 180.0));
+	}
+
+	public int screenX(double vx) {
+		return (int) Math.floor((vx - centerX) * scale + width / 2.0);
+	}
+
+	public int screenY(double vy) {
+		return (int) Math.floor((centerY - vy) * scale + height / 2.0);
+	}
+
+	public double gridX(double x) {
+		return (x - width / 2.0) / scale + centerX;
+	}
+
+	public double gridY(double y) {
+		return centerY - (y - height / 2.0) / scale;
+	}
+
+	/**
+	 * @return the same view on a canvas of the given size
+	 */
+	public ViewTransform withSize(int width, int height) {
+		return new ViewTransform(width, height, zoom, centerX, centerY);
+	}
+
+	/**
+	 * @return the view zoomed by the factor, keeping the grid point under the pixel in place
+	 */
+	public ViewTransform zoomAt(int x, int y, double factor) {
+		double vx = gridX(x), vy = gridY(y);
+		double newZoom = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, zoom * factor));
+		double newScale = width / 180.0 * newZoom;
+		return new ViewTransform(width, height, newZoom,
+				vx - (x - width / 2.0) / newScale, vy + (y - height / 2.0) / newScale);
+	}
+
+	/**
+	 * @return the view moved so that the grid follows the mouse by the given pixels
+	 */
+	public ViewTransform panBy(int dx, int dy) {
+		return new ViewTransform(width, height, zoom, centerX - dx / scale, centerY + dy / scale);
+	}
+
+}
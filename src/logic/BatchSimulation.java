@@ -0,0 +1,106 @@
+package logic;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import data.FlightTable;
+import data.model.Airport;
+import data.model.Flight;
+import error.ScheduleFormatException;
+import helper.CSVParser;
+import helper.SimulationClock;
+
+/**
+ * This class runs a schedule without the GUI and without waiting between ticks, printing
+ * every departure, delay, holding, arrival and conflict, followed by a short summary.
+ *
+ * <p> Usage: {@code java logic.BatchSimulation schedule.csv}
+ */
+public class BatchSimulation implements SimulationListener {
+
+	private PrintStream out;
+	private int departures, delays, holdings, arrivals, conflicts;
+	private long totalDelay, totalHolding;
+
+	public BatchSimulation(PrintStream out) {
+		this.out = out;
+	}
+
+	/**
+	 * Runs the whole schedule
+	 * @return the simulation time at which the last flight arrived
+	 */
+	public long run(List<Airport> airports, List<Flight> flights) {
+		SimulationEngine engine = new SimulationEngine(airports, flights, this);
+		engine.setConflictSeparation(ConflictDetector.DEFAULT_SEPARATION);
+		long end = engine.runToEnd();
+		out.println(String.format("Departures: %d, delayed: %d (%d minutes in total), arrivals: %d, held: %d (%d minutes in total), conflicts: %d, finished at %s",
+				departures, delays, totalDelay, arrivals, holdings, totalHolding, conflicts, formatTime(end)));
+		return end;
+	}
+
+	@Override
+	public void departed(FlightTable table, int row, long time) {
+		departures++;
+		totalDelay += table.getDepartureTime(row) - table.getStartTime(row);
+		out.println(formatTime(time) + " DEP " + route(table, row));
+	}
+
+	@Override
+	public void delayed(FlightTable table, int row, long time) {
+		delays++;
+		out.println(formatTime(time) + " DLY " + route(table, row) + " rescheduled to "
+				+ formatTime(table.getDepartureTime(row)));
+	}
+
+	@Override
+	public void holding(FlightTable table, int row, long time) {
+		holdings++;
+		out.println(formatTime(time) + " HLD " + route(table, row) + " expected to land at "
+				+ formatTime(table.getLandingTime(row)));
+	}
+
+	@Override
+	public void arrived(FlightTable table, int row, long time) {
+		arrivals++;
+		totalHolding += table.getLandingTime(row) - table.getArrivalTime(row);
+		out.println(formatTime(time) + " ARR " + route(table, row));
+	}
+
+	@Override
+	public void conflict(FlightTable table, int row, int other, long time) {
+		conflicts++;
+		out.println(formatTime(time) + " CNF " + route(table, row) + " and " + route(table, other));
+	}
+
+	private static String route(FlightTable table, int row) {
+		return table.getAirport(table.getStartAirport(row)).getTag() + "->"
+				+ table.getAirport(table.getEndAirport(row)).getTag();
+	}
+
+	private static String formatTime(long time) {
+		return SimulationClock.format(time);
+	}
+
+	public static void main(String[] args) {
+		if (args.length != 1) {
+			System.err.println("Usage: java logic.BatchSimulation <schedule.csv>");
+			System.exit(2);
+		}
+		ArrayList<Airport> airports = new ArrayList<>();
+		ArrayList<Flight> flights = new ArrayList<>();
+		try {
+			System.err.println(args[0] + ": " + CSVParser.parse(args[0], airports, flights));
+		} catch (ScheduleFormatException e) {
+			System.err.println(e.getMessage());
+			System.exit(1);
+		} catch (IOException e) {
+			System.err.println("Error while reading '" + args[0] + "': " + e.getMessage());
+			System.exit(1);
+		}
+		new BatchSimulation(System.out).run(airports, flights);
+	}
+
+}
@@ -0,0 +1,171 @@
+package logic;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+
+import data.FlightTable;
+import helper.GreatCircle;
+
+/**
+ * This class finds the flights in the air that are closer to each other than the
+ * separation, on every tick.
+ *
+ * <p> The flights are placed as points on the unit sphere, and hashed into a uniform grid
+ * of cubes twice as large as the separation. The flights closer to a flight than the
+ * separation are then in its cube, or in the neighbouring cubes on the sides of the half
+ * of the cube it is in: 8 cubes in all. Each flight is compared with the flights hashed
+ * before it in those cubes, which takes about linear time instead of comparing every pair.
+ *
+ * <p> Flights close to their airports are left out, as all the flights of an airport meet
+ * there. The model has no altitudes, so only the horizontal distance is checked.
+ */
+class ConflictDetector {
+
+	// 5 nautical miles, and the radius around the airports where flights aren't checked
+	static final double DEFAULT_SEPARATION = 9.26;
+	static final double DEFAULT_TERMINAL_RADIUS = 55.56;
+
+	private final double terminalRadius;
+	// Separation as the straight distance between points on the unit sphere, its square,
+	// and the side of the cubes
+	private final double chord, chordSquared, side;
+
+	// Rows, positions, cubes and neighbouring cubes of the flights that are checked,
+	// reused on every tick
+	private int count;
+	private int[] rows = new int[16];
+	private double[] px = new double[16], py = new double[16], pz = new double[16];
+	private int[] cx = new int[16], cy = new int[16], cz = new int[16];
+	private byte[] dx = new byte[16], dy = new byte[16], dz = new byte[16];
+	// Hash table of the cubes: the first flight of each bucket, and the next flight in it
+	private int[] head = new int[32];
+	private int[] next = new int[16];
+
+	// Pairs in conflict on the last tick, as the two rows in one long, and their rows
+	private Set<Long> pairs = new HashSet<>();
+	private Set<Long> previousPairs = new HashSet<>();
+	private BitSet inConflict = new BitSet();
+
+	private final double[] v = new double[3];
+
+	/**
+	 * @param separation Distance in km under which two flights are in conflict
+	 * @param terminalRadius Distance in km from their airports under which flights aren't checked
+	 */
+	ConflictDetector(double separation, double terminalRadius) {
+		if (separation <= 0) throw new IllegalArgumentException("The separation must be positive");
+		this.terminalRadius = terminalRadius;
+		this.chord = 2 * Math.sin(separation / GreatCircle.EARTH_RADIUS / 2);
+		this.chordSquared = chord * chord;
+		this.side = 2 * chord;
+	}
+
+	/**
+	 * @return true if the row was in conflict with another flight on the last tick
+	 */
+	boolean isInConflict(int row) {
+		return inConflict.get(row);
+	}
+
+	/**
+	 * Checks the flights in the air, and notifies the listener about the pairs that
+	 * weren't in conflict on the previous tick
+	 * @param airborne Rows of the flights in the air
+	 * @param size Number of rows in the array that are used
+	 * @param now Simulation time in minutes
+	 */
+	void detect(FlightTable table, FlightPaths paths, int[] airborne, int size, long now, SimulationListener listener) {
+		place(table, paths, airborne, size, now);
+
+		Set<Long> swap = previousPairs;
+		previousPairs = pairs;
+		pairs = swap;
+		pairs.clear();
+		inConflict.clear();
+
+		int mask = head.length - 1;
+		Arrays.fill(head, -1);
+		for (int i = 0; i < count; i++) {
+			for (int x = cx[i], xn = x + dx[i]; ; x = xn) {
+				for (int y = cy[i], yn = y + dy[i]; ; y = yn) {
+					for (int z = cz[i], zn = z + dz[i]; ; z = zn) {
+						for (int j = head[hash(x, y, z) & mask]; j >= 0; j = next[j]) {
+							// Other cubes can share the bucket
+							if (cx[j] != x || cy[j] != y || cz[j] != z) continue;
+							double ex = px[i] - px[j], ey = py[i] - py[j], ez = pz[i] - pz[j];
+							if (ex * ex + ey * ey + ez * ez < chordSquared) conflict(table, i, j, now, listener);
+						}
+						if (z == zn) break;
+					}
+					if (y == yn) break;
+				}
+				if (x == xn) break;
+			}
+			int bucket = hash(cx[i], cy[i], cz[i]) & mask;
+			next[i] = head[bucket];
+			head[bucket] = i;
+		}
+	}
+
+	/**
+	 * Computes the positions and cubes of the flights that are away from their airports
+	 */
+	private void place(FlightTable table, FlightPaths paths, int[] airborne, int size, long now) {
+		if (rows.length < size) {
+			int n = Math.max(size, rows.length * 2);
+			rows = new int[n];
+			px = new double[n];
+			py = new double[n];
+			pz = new double[n];
+			cx = new int[n];
+			cy = new int[n];
+			cz = new int[n];
+			dx = new byte[n];
+			dy = new byte[n];
+			dz = new byte[n];
+			next = new int[n];
+		}
+		if (head.length < 2 * size) {
+			head = new int[Integer.highestOneBit(2 * size) * 2];
+		}
+		double terminal = terminalRadius / GreatCircle.EARTH_RADIUS;
+		count = 0;
+		for (int k = 0; k < size; k++) {
+			int row = airborne[k];
+			double progress = (double) (now - table.getDepartureTime(row)) / table.getDuration(row);
+			if (progress < 0) progress = 0;
+			else if (progress > 1) progress = 1;
+			double angle = paths.getAngle(row), travelled = angle * progress;
+			if (travelled < terminal || angle - travelled < terminal) continue;
+			paths.point(row, travelled, v);
+			rows[count] = row;
+			px[count] = v[0];
+			py[count] = v[1];
+			pz[count] = v[2];
+			double x = v[0] / side, y = v[1] / side, z = v[2] / side;
+			cx[count] = (int) Math.floor(x);
+			cy[count] = (int) Math.floor(y);
+			cz[count] = (int) Math.floor(z);
+			dx[count] = (byte) (x - cx[count] < 0.5 ? -1 : 1);
+			dy[count] = (byte) (y - cy[count] < 0.5 ? -1 : 1);
+			dz[count] = (byte) (z - cz[count] < 0.5 ? -1 : 1);
+			count++;
+		}
+	}
+
+	private void conflict(FlightTable table, int i, int j, long now, SimulationListener listener) {
+		int a = Math.min(rows[i], rows[j]), b = Math.max(rows[i], rows[j]);
+		Long pair = ((long) a << 32) | b;
+		pairs.add(pair);
+		inConflict.set(a);
+		inConflict.set(b);
+		if (!previousPairs.contains(pair)) listener.conflict(table, a, b, now);
+	}
+
+	private static int hash(int x, int y, int z) {
+		return x * 73856093 ^ y * 19349663 ^ z * 83492791;
+	}
+
+}
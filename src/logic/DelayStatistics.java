@@ -0,0 +1,74 @@
+package logic;
+
+/**
+ * This class collects a distribution of departure delays in whole minutes. Delays are
+ * counted in a histogram, so statistics of separate simulations can be merged cheaply.
+ */
+public class DelayStatistics {
+
+	// Delays of MAX_DELAY minutes or more share the last bucket of the histogram
+	public static final int MAX_DELAY = 24 * 60;
+
+	private long[] histogram = new long[MAX_DELAY + 1];
+	private long count;
+	private long total;
+	private int max;
+
+	public void add(int delay) {
+		if (delay < 0) delay = 0;
+		histogram[Math.min(delay, MAX_DELAY)]++;
+		count++;
+		total += delay;
+		max = Math.max(max, delay);
+	}
+
+	/**
+	 * Adds all the delays of the other statistics to these
+	 * @return this object, so merges can be chained
+	 */
+	public DelayStatistics merge(DelayStatistics other) {
+		for (int i = 0; i <= MAX_DELAY; i++) {
+			histogram[i] += other.histogram[i];
+		}
+		count += other.count;
+		total += other.total;
+		max = Math.max(max, other.max);
+		return this;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public int getMax() {
+		return max;
+	}
+
+	public double getMean() {
+		if (count == 0) return 0;
+		return (double) total / count;
+	}
+
+	/**
+	 * @param p Percentile in [0, 100]
+	 * @return the smallest delay that at least p percent of the departures didn't exceed
+	 */
+	public int getPercentile(double p) {
+		if (count == 0) return 0;
+		long rank = (long) Math.ceil(p / 100.0 * count);
+		if (rank < 1) rank = 1;
+		long seen = 0;
+		for (int i = 0; i <= MAX_DELAY; i++) {
+			seen += histogram[i];
+			if (seen >= rank) return i;
+		}
+		return MAX_DELAY;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("flights: %d  |  mean: %.1f  |  p50: %d  |  p95: %d  |  max: %d",
+				count, getMean(), getPercentile(50), getPercentile(95), max);
+	}
+
+}
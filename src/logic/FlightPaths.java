@@ -0,0 +1,110 @@
+package logic;
+
+import java.util.Arrays;
+
+import data.FlightTable;
+import helper.GreatCircle;
+
+/**
+ * This class holds the great-circle path of every flight of a FlightTable, by row.
+ *
+ * <p> The trigonometry is done once for each flight, when its row is added: the unit
+ * vector A of the start airport, the unit vector U orthogonal to it towards the
+ * destination, and the angle between the airports. A point of the path is then
+ * cos(a) A + sin(a) U, see position.
+ *
+ * <p> Airports don't move, so the path of a row never changes. The values of a row are
+ * stored next to each other.
+ */
+class FlightPaths {
+
+	// Values of a row: the components of A, the components of U, the angle in radians, and
+	// the longitudes of the airports, for the poles where the vectors don't give one
+	private static final int AX = 0, AY = 1, AZ = 2, UX = 3, UY = 4, UZ = 5, ANGLE = 6, START_LON = 7, END_LON = 8;
+	private static final int STRIDE = 9;
+	// Squared distance from the earth's axis under which a point is taken as a pole
+	private static final double POLE = 1e-10;
+
+	private int size;
+	private float[] paths = new float[16 * STRIDE];
+
+	/**
+	 * Computes the paths of the rows that were added to the table since the last call
+	 */
+	void update(FlightTable table) {
+		if (table.size() <= size) return;
+		if (table.size() * STRIDE > paths.length) {
+			paths = Arrays.copyOf(paths, Math.max(table.size() * STRIDE, paths.length * 2));
+		}
+		double[] a = new double[3], b = new double[3];
+		for (int row = size; row < table.size(); row++) {
+			int start = table.getStartAirport(row), end = table.getEndAirport(row);
+			double lon = table.getAirportX(start), lat = table.getAirportY(start);
+			GreatCircle.toVector(lon, lat, a);
+			GreatCircle.toVector(table.getAirportX(end), table.getAirportY(end), b);
+			double cos = a[0] * b[0] + a[1] * b[1] + a[2] * b[2];
+			// The part of B orthogonal to A, its length is the sine of the angle
+			double px = b[0] - cos * a[0], py = b[1] - cos * a[1], pz = b[2] - cos * a[2];
+			double sin = Math.sqrt(px * px + py * py + pz * pz);
+			double w = Math.atan2(sin, cos);
+			if (sin < 1e-9) {
+				// The airports are the same or opposite, any direction is a great circle, north is taken
+				double phi = Math.toRadians(lat), lambda = Math.toRadians(lon);
+				px = -Math.sin(phi) * Math.cos(lambda);
+				py = -Math.sin(phi) * Math.sin(lambda);
+				pz = Math.cos(phi);
+				sin = 1;
+			}
+			int i = row * STRIDE;
+			paths[i + AX] = (float) a[0];
+			paths[i + AY] = (float) a[1];
+			paths[i + AZ] = (float) a[2];
+			paths[i + UX] = (float) (px / sin);
+			paths[i + UY] = (float) (py / sin);
+			paths[i + UZ] = (float) (pz / sin);
+			paths[i + ANGLE] = (float) w;
+			paths[i + START_LON] = (float) lon;
+			paths[i + END_LON] = table.getAirportX(end);
+		}
+		size = table.size();
+	}
+
+	/**
+	 * @return the angle between the airports of the row, in radians
+	 */
+	float getAngle(int row) {
+		return paths[row * STRIDE + ANGLE];
+	}
+
+	/**
+	 * Writes the unit vector of the point of the row's path
+	 * @param travelled Angle from the start airport in radians
+	 * @param v Array of at least 3 elements, the vector is written to v[0..2]
+	 */
+	void point(int row, double travelled, double[] v) {
+		int i = row * STRIDE;
+		double cos = Math.cos(travelled), sin = Math.sin(travelled);
+		v[0] = cos * paths[i + AX] + sin * paths[i + UX];
+		v[1] = cos * paths[i + AY] + sin * paths[i + UY];
+		v[2] = cos * paths[i + AZ] + sin * paths[i + UZ];
+	}
+
+	/**
+	 * Writes the map position of the point of the row's path
+	 * @param progress Part of the path that was flown, between 0 and 1
+	 * @param index Index in the arrays the longitude and latitude in degrees are written to
+	 */
+	void position(int row, double progress, float[] x, float[] y, int index) {
+		int i = row * STRIDE;
+		double a = paths[i + ANGLE] * progress;
+		double cos = Math.cos(a), sin = Math.sin(a);
+		double vx = cos * paths[i + AX] + sin * paths[i + UX];
+		double vy = cos * paths[i + AY] + sin * paths[i + UY];
+		double vz = cos * paths[i + AZ] + sin * paths[i + UZ];
+		// At a pole every longitude is the same point, the one of the nearer airport is used
+		if (vx * vx + vy * vy > POLE) x[index] = (float) GreatCircle.longitude(vx, vy);
+		else x[index] = progress < 0.5 ? paths[i + START_LON] : paths[i + END_LON];
+		y[index] = (float) GreatCircle.latitude(vz);
+	}
+
+}
@@ -0,0 +1,164 @@
+package logic;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import data.FlightTable;
+import data.model.Airport;
+import data.model.Flight;
+import error.ScheduleFormatException;
+import helper.CSVParser;
+
+/**
+ * This class runs many randomized variants of a schedule in parallel and collects the
+ * distribution of departure delays for every airport.
+ *
+ * <p> Every variant shifts the start time of each flight and stretches its duration by a
+ * normally distributed amount. The variants run headless on a fork-join pool, each one on
+ * its own copies of the airports and flights, so the original schedule is never touched.
+ *
+ * <p> Usage: {@code java logic.MonteCarloRunner schedule.csv [variants] [seed] [startSigma] [durationSigma]}
+ */
+public class MonteCarloRunner {
+
+	private FlightTable schedule;
+	private final double startSigma;
+	private final double durationSigma;
+
+	/**
+	 * @param airports Airports of the schedule, copied before the runner returns
+	 * @param flights Flights of the schedule, copied before the runner returns
+	 * @param startSigma Standard deviation of the start time shift in minutes
+	 * @param durationSigma Standard deviation of the duration stretch, as a fraction of the duration
+	 */
+	public MonteCarloRunner(List<Airport> airports, List<Flight> flights, double startSigma, double durationSigma) {
+		this.startSigma = startSigma;
+		this.durationSigma = durationSigma;
+		schedule = new FlightTable(airports.size(), flights.size());
+		// Index of the copy of each airport, the flights are added with them
+		Map<Airport, Integer> copies = new IdentityHashMap<>();
+		for (Airport a : airports) {
+			copies.put(a, schedule.addAirport(new Airport(a)));
+		}
+		for (Flight f : flights) {
+			schedule.addFlight(copyOf(copies, f.getStartAirport()), copyOf(copies, f.getEndAirport()),
+					f.getStartTime(), f.getDuration());
+		}
+	}
+
+	private static int copyOf(Map<Airport, Integer> copies, Airport a) {
+		Integer index = copies.get(a);
+		if (index == null) throw new IllegalArgumentException("The airport " + a.getTag() + " of a flight isn't in the schedule");
+		return index;
+	}
+
+	/**
+	 * Runs the variants on all available cores
+	 * @param variants Number of randomized variants
+	 * @param seed Seed of the randomization, the same seed gives the same results
+	 * @return the delay statistics of every airport, by tag
+	 */
+	public Map<String, DelayStatistics> run(int variants, long seed) {
+		return run(variants, seed, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Runs the variants on a pool with the given number of workers
+	 */
+	public Map<String, DelayStatistics> run(int variants, long seed, int parallelism) {
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			return pool.submit(() -> IntStream.range(0, variants)
+					.parallel()
+					.collect(HashMap<String, DelayStatistics>::new,
+							(result, variant) -> runVariant(new SplittableRandom(seed + variant), result),
+							MonteCarloRunner::merge))
+					.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Monte Carlo run was interrupted", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Monte Carlo run failed", e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Simulates one variant on its own copy of the schedule and adds its delays to the result
+	 */
+	private void runVariant(SplittableRandom random, Map<String, DelayStatistics> result) {
+		FlightTable variant = new FlightTable(schedule.airportCount(), schedule.size());
+		for (int i = 0; i < schedule.airportCount(); i++) {
+			variant.addAirport(new Airport(schedule.getAirport(i)));
+		}
+		for (int row = 0; row < schedule.size(); row++) {
+			long start = schedule.getStartTime(row) + Math.round(random.nextGaussian() * startSigma);
+			if (start < 0) start = 0;
+			int duration = (int) Math.round(schedule.getDuration(row) * (1 + random.nextGaussian() * durationSigma));
+			if (duration < 1) duration = 1;
+			variant.addFlight(schedule.getStartAirport(row), schedule.getEndAirport(row), start, duration);
+		}
+
+		new SimulationEngine(variant, new SimulationListener() {
+			@Override
+			public void departed(FlightTable table, int row, long time) {
+				String tag = table.getAirport(table.getStartAirport(row)).getTag();
+				result.computeIfAbsent(tag, t -> new DelayStatistics()).add((int) (table.getDepartureTime(row) - table.getStartTime(row)));
+			}
+
+			@Override
+			public void delayed(FlightTable table, int row, long time) {}
+
+			@Override
+			public void arrived(FlightTable table, int row, long time) {}
+		}).runToEnd();
+	}
+
+	private static void merge(Map<String, DelayStatistics> into, Map<String, DelayStatistics> from) {
+		for (Map.Entry<String, DelayStatistics> e : from.entrySet()) {
+			into.merge(e.getKey(), e.getValue(), DelayStatistics::merge);
+		}
+	}
+
+	public static void main(String[] args) {
+		if (args.length < 1 || args.length > 5) {
+			System.err.println("Usage: java logic.MonteCarloRunner <schedule.csv> [variants] [seed] [startSigma] [durationSigma]");
+			System.exit(2);
+		}
+		ArrayList<Airport> airports = new ArrayList<>();
+		ArrayList<Flight> flights = new ArrayList<>();
+		try {
+			System.err.println(args[0] + ": " + CSVParser.parse(args[0], airports, flights));
+		} catch (ScheduleFormatException e) {
+			System.err.println(e.getMessage());
+			System.exit(1);
+		} catch (IOException e) {
+			System.err.println("Error while reading '" + args[0] + "': " + e.getMessage());
+			System.exit(1);
+		}
+		int variants = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : 0;
+		double startSigma = args.length > 3 ? Double.parseDouble(args[3]) : 10;
+		double durationSigma = args.length > 4 ? Double.parseDouble(args[4]) : 0.1;
+
+		long startTime = System.nanoTime();
+		Map<String, DelayStatistics> result = new MonteCarloRunner(airports, flights, startSigma, durationSigma).run(variants, seed);
+		long elapsed = (System.nanoTime() - startTime) / 1_000_000;
+
+		for (Map.Entry<String, DelayStatistics> e : new TreeMap<>(result).entrySet()) {
+			System.out.println(e.getKey() + "  |  " + e.getValue());
+		}
+		System.out.println(String.format("%d variants in %d ms", variants, elapsed));
+	}
+
+}
@@ -0,0 +1,41 @@
+package logic;
+
+/**
+ * This interface moves a batch of flights between their positions at two ticks, see
+ * SimulationFrame.positions.
+ *
+ * <p> The scalar kernel always works. A kernel using the Vector API is kept in the
+ * src-vector source folder, as jdk.incubator.vector is not part of every JDK: it is used
+ * when it was compiled and the JVM runs with {@code --add-modules jdk.incubator.vector}.
+ * The system property {@code flights.kernel=scalar} forces the scalar kernel.
+ */
+interface PositionKernel {
+
+	/**
+	 * @param x0 Longitudes in degrees at the frame's tick
+	 * @param y0 Latitudes in degrees at the frame's tick
+	 * @param dx Change of the longitudes until the next tick, between -180 and 180
+	 * @param dy Change of the latitudes until the next tick
+	 * @param from Index of the first flight
+	 * @param to Index after the last flight
+	 * @param f Part of the step to the next tick that has passed, between 0 and 1
+	 * @param x Array the longitudes in degrees are written to
+	 * @param y Array the latitudes in degrees are written to
+	 */
+	void positions(float[] x0, float[] y0, float[] dx, float[] dy, int from, int to, float f, float[] x, float[] y);
+
+	/**
+	 * @return the fastest kernel that can run in this JVM
+	 */
+	static PositionKernel load() {
+		if (!"scalar".equals(System.getProperty("flights.kernel"))) {
+			try {
+				return (PositionKernel) Class.forName("logic.VectorPositionKernel").getDeclaredConstructor().newInstance();
+			} catch (ReflectiveOperationException | LinkageError e) {
+				// Not compiled, or the incubator module isn't added
+			}
+		}
+		return new ScalarPositionKernel();
+	}
+
+}
@@ -0,0 +1,20 @@
+package logic;
+
+/**
+ * This class computes the positions one flight after the other.
+ */
+class ScalarPositionKernel implements PositionKernel {
+
+	@Override
+	public void positions(float[] x0, float[] y0, float[] dx, float[] dy, int from, int to, float f, float[] x, float[] y) {
+		for (int i = from; i < to; i++) {
+			float lon = x0[i] + f * dx[i];
+			// Paths crossing the antimeridian
+			if (lon > 180) lon -= 360;
+			else if (lon < -180) lon += 360;
+			x[i] = lon;
+			y[i] = y0[i] + f * dy[i];
+		}
+	}
+
+}
@@ -1,49 +1,89 @@
 package logic;
 
 import java.awt.Label;
-import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
+import data.FlightTable;
 import data.InitialData;
+import data.ScheduleListener;
 import data.model.Airport;
 import data.model.Flight;
-import data.model.Model;
 import gui.MapScene;
 import helper.SimulationClock;
 
-public class Simulation extends Thread {
+/**
+ * This class runs the SimulationEngine in real time: it waits for the ticks of the
+ * SimulationClock and shows the departed flights on the map until they arrive.
+ *
+ * <p> Only the simulation thread touches the engine. After the ticks it has processed, it
+ * publishes a SimulationFrame of the flights in the air, which the map's render thread
+ * reads without taking any lock.
+ */
+public class Simulation extends Thread implements SimulationListener, ScheduleListener {
 	
-	// Simulation ticks every SIM_TICK milliseconds.
+	// Simulation ticks every SIM_TICK milliseconds at normal speed.
 	private final int SIM_TICK = 200;
+	// Frames the simulation may spend catching up or running unbounded before updating the screen
+	private static final long FRAME_NANOS = 1_000_000_000L / 60;
 	
 	MapScene map;
-	ArrayList<Flight> simFlights = new ArrayList<>();
+	InitialData data;
+	SimulationEngine engine;
 	public SimulationClock timer;
 	private Label timeLabel;
+	// Flights in the air after the last processed ticks
+	private volatile SimulationFrame frame = SimulationFrame.EMPTY;
+	
+	// Airports and flights added while the simulation runs, handed over to the simulation thread
+	private ConcurrentLinkedQueue<Airport> addedAirports = new ConcurrentLinkedQueue<>();
+	private ConcurrentLinkedQueue<Flight> addedFlights = new ConcurrentLinkedQueue<>();
 	
 	/**
 	 * @param map The scene the map is tied to
+	 * @param data The data set whose airports and flights are simulated
 	 * @param timeLabel The timer label that the simulation updates
 	 * @param initialPause The state the simulation starts in: paused or not
 	 */
-	public Simulation(MapScene map, Label timeLabel, boolean initialPause) {
+	public Simulation(MapScene map, InitialData data, Label timeLabel, boolean initialPause) {
 		this.timeLabel = timeLabel;
 		this.map = map;
-		simFlights = (ArrayList<Flight>) InitialData.getFlights().clone();
-		timer = new SimulationClock(SIM_TICK);
-		timer.addClient(this);
-		timer.start();
+		this.data = data;
+		synchronized (data) {
+			engine = new SimulationEngine(data.getAirports(), data.getFlights(), this);
+			engine.setConflictSeparation(ConflictDetector.DEFAULT_SEPARATION);
+			data.addListener(this);
+		}
+		timer = new SimulationClock(SIM_TICK, engine.getStep());
 		if (!initialPause)	timer.go();
 		else timeLabel.setText(timer.toString());
 		this.start();
 	}
 	
+	/**
+	 * @return the time of the clock, with the number of ticks that were caught up late when
+	 * the simulation couldn't keep up with the clock
+	 */
+	private String timeText() {
+		long late = timer.getCoalescedTicks();
+		if (late == 0) return timer.toString();
+		return String.format("%s  (%d of %d ticks caught up late)", timer, late, timer.getFiredTicks());
+	}
+	
+	/**
+	 * Sets how much faster than normal the simulation runs
+	 * @param speed Factor of the normal speed, 0 to run as fast as possible
+	 */
+	public void setSpeed(int speed) {
+		timer.setTickInterval(speed == 0 ? 0 : Math.max(1, SIM_TICK / speed));
+	}
+	
 	/**
 	 * Terminates the timer and simulation threads when they are no longer needed
 	 */
 	public synchronized void finish() {
+		data.removeListener(this);
 		if (timer != null) {
-			timer.interrupt();
+			timer.stop();
 		}
 		interrupt();
 		while (map.simulation != null) {
@@ -59,88 +99,82 @@ public class Simulation extends Thread {
         notify(); 
     }
 	
-	public boolean inInterval(Flight f) {
-		return timer.isIntervalActive(f.getHour(), f.getMinute(), f.getDuration());
+	@Override
+	public void airportAdded(Airport airport) {
+		addedAirports.add(airport);
 	}
 	
+	@Override
+	public void flightAdded(Flight flight) {
+		addedFlights.add(flight);
+	}
+	
+	// A new schedule restarts the simulation, see MainWindow
+	@Override
+	public void scheduleReplaced() {}
+	
+	// The map shows the flights of the published frames and their conflicts, see getFrame
+	@Override
+	public void departed(FlightTable table, int row, long time) {}
+	
+	@Override
+	public void delayed(FlightTable table, int row, long time) {}
+	
+	@Override
+	public void arrived(FlightTable table, int row, long time) {}
+	
 	/**
-	 * Handles the actual simulation: goes through the logic of which models are supposed to be
-	 * drawn and calls the Scene's paintTick method for the actual painting.
+	 * @return the flights in the air after the last ticks, which never changes afterwards
+	 */
+	public SimulationFrame getFrame() {
+		return frame;
+	}
+	
+	/**
+	 * Handles the actual simulation: lets the engine decide which models are supposed to be
+	 * drawn and asks the Scene's render thread for a new frame, without waiting for it.
+	 * 
+	 * <p> Every tick of the clock is processed, the ones that fired while the previous
+	 * ones were processed are caught up on in a row.
 	 */
 	@Override
 	public void run() {
+		long now = 0;
+		int ticks = 1;
+		long shownTime = -1;
 		try {
 			while(!Thread.interrupted()) {	
-  				timeLabel.setText(timer.toString());
- 				timeLabel.revalidate();
- 				
- 				/*
- 				 * Deals with each airport's Flight queuing,
- 				 * updates the passed time and dispatches the next flight
- 				 * from the queue if it is ready.
- 				*/
-				for (Airport a : InitialData.getAirports()) {
-					a.setPassedTime(a.getPassedTime() + 2);
-					if (a.numberOfWaitingFlight() != 0 && a.canWaitingFly()) {
-						Flight f = a.getNextFlight();
-						map.addModel(f);
-						a.setLastDepartedFlightTime(f.getStartTime());
-						a.setPassedTime(0);
-					}
+				// The label is only formatted and laid out again when its time changes
+				long time = timer.getTime();
+				if (time != shownTime) {
+					shownTime = time;
+					timeLabel.setText(timeText());
+					timeLabel.revalidate();
 				}
-				
-				
-				/* 
-				 * Goes through each flight, checking if it is ready to
-				 * display or not, if it is either dispatches it instantly
-				 * or adds it to the airport's queue to wait until it can
-				 */
-				Iterator<Flight> flightIterator = simFlights.iterator();
-				while (flightIterator.hasNext()) {
-					Flight f = flightIterator.next();
-					if (inInterval(f)) {
-						Airport start = f.getStartAirport();
-						
-						// If no flights in queue, dispatch
-						if (start.canInstantFly()) {
-							map.addModel(f);
-							start.setLastDepartedFlightTime(f.getStartTime());
-							start.setPassedTime(0);
-						}
-						
-						// Otherwise reschedule the flight and add it to the queue
-						else {
-							int newStartTime = start.getLastDepartedFlightTime()
-									+ (start.numberOfWaitingFlight() + 1) * 10; 
-							int newStartHour = newStartTime / 60;
-							int newStartMinute = newStartTime % 60;
-							Flight delayedFlight = new Flight(1,
-									f.getStartAirport(), f.getEndAirport(), 
-									newStartHour, newStartMinute, f.getDuration());
-							start.addFlightToQueue(delayedFlight);
-						}
-						flightIterator.remove();
-					}
-				}
-				
-				// Removes flights that have passed
-				Iterator<Model> modelsIterator = map.getDisplayed().iterator();
-				while (modelsIterator.hasNext()) {
-					Model m = modelsIterator.next();
-					if (m instanceof Flight) {
-						Flight f = (Flight) m;
-						if (!inInterval(f)) {
-							modelsIterator.remove();
-						}
+ 				
+ 				Airport a;
+ 				while ((a = addedAirports.poll()) != null) {
+ 					engine.addAirport(a);
+ 				}
+ 				Flight f;
+ 				while ((f = addedFlights.poll()) != null) {
+ 					engine.addFlight(f);
+ 				}
+ 				
+				// An unbounded clock keeps ticking until a frame's time is used up
+				long frameEnd = System.nanoTime() + FRAME_NANOS;
+				do {
+					for (int i = 0; i < ticks; i++) {
+						engine.tick(now);
+						now += engine.getStep();
 					}
-				}
+				} while (timer.isUnbounded() && System.nanoTime() < frameEnd && (ticks = timer.pollTicks()) > 0);
 				
-				map.repaint();
+				frame = engine.snapshot(now - engine.getStep());
+				map.paintTick();
 				
-				// Wait for the Simulation Timer to notify
-			    synchronized (this) {
-				    this.wait();
-				}
+				// Wait for the Simulation Timer to tick, and take every tick that is pending
+				ticks = timer.awaitTicks();
 			}
 		} catch (InterruptedException e) {}
 		
@@ -0,0 +1,309 @@
+package logic;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import data.FlightTable;
+import data.model.Airport;
+import data.model.RunwayScheduler;
+import data.model.Flight;
+
+/**
+ * This class holds the simulation logic, independent of the clock and the GUI:
+ * which flights depart, which wait in their airport's queue, which hold over their
+ * destination until a runway is free to land on, and which arrive.
+ *
+ * <p> Each call to tick processes one point in simulation time, and the events are
+ * reported to the SimulationListener. The engine can be driven by the
+ * SimulationClock, or as fast as possible by a headless caller.
+ *
+ * <p> Flights are kept in a FlightTable, and the engine only works with their rows.
+ * Only the airports with waiting or holding flights are visited on each tick. Holding
+ * flights stay in the air, over their destination.
+ *
+ * <p> The great-circle paths of the flights are computed once, when they are added. The
+ * frames get the positions of the flights on their paths at a tick and at the next one,
+ * and the position at the next tick is kept, so it is computed once for both frames when
+ * they follow each other. The paths are also used to check the flights in the air for
+ * conflicts, when it is enabled.
+ */
+public class SimulationEngine {
+
+	// Default simulation minutes that pass between two ticks
+	public static final int SIM_STEP = 2;
+
+	private FlightTable table;
+	private FlightPaths paths = new FlightPaths();
+	private TimeQueue departures = new TimeQueue();
+	private TimeQueue arrivals = new TimeQueue();
+	private SimulationListener listener;
+	private int waiting, holding;
+	// Airports with flights in their departure queue, and with flights holding to land, by index
+	private BitSet queued = new BitSet();
+	private BitSet holdingAt = new BitSet();
+	private final int step = SIM_STEP;
+	private ConflictDetector conflicts;
+
+	// Rows of the flights in the air, and the index of every row in that array or -1
+	private int[] airborne = new int[16];
+	private int airborneCount;
+	private int[] airborneIndex = new int[0];
+	// Map position of every row at the time it was last placed, see place
+	private long[] placedAt = new long[0];
+	private float[] placedX = new float[0], placedY = new float[0];
+
+	/**
+	 * @param airports Airports of the schedule, their queues are reset
+	 * @param flights Flights of the schedule
+	 * @param listener Listener notified about departures, delays, holdings and arrivals
+	 */
+	public SimulationEngine(List<Airport> airports, List<Flight> flights, SimulationListener listener) {
+		this(FlightTable.of(airports, flights), listener);
+	}
+
+	/**
+	 * @param table Airports and flights of the schedule, the airports' queues are reset
+	 * @param listener Listener notified about departures, delays, holdings and arrivals
+	 */
+	public SimulationEngine(FlightTable table, SimulationListener listener) {
+		this.table = table;
+		this.listener = listener;
+		for (int i = 0; i < table.airportCount(); i++) {
+			table.getAirport(i).getDepartures().reset();
+			table.getAirport(i).getArrivals().reset();
+		}
+		for (int row = 0; row < table.size(); row++) {
+			schedule(row);
+		}
+		paths.update(table);
+	}
+
+	/**
+	 * @return the simulation minutes between two ticks
+	 */
+	public int getStep() {
+		return step;
+	}
+
+	/**
+	 * Checks the flights in the air for conflicts after every tick, see ConflictDetector
+	 * @param separation Distance in km under which two flights are in conflict, 0 to stop checking
+	 */
+	public void setConflictSeparation(double separation) {
+		conflicts = separation > 0 ? new ConflictDetector(separation, ConflictDetector.DEFAULT_TERMINAL_RADIUS) : null;
+	}
+
+	/**
+	 * Adds an airport to a running simulation
+	 */
+	public void addAirport(Airport a) {
+		a.getDepartures().reset();
+		a.getArrivals().reset();
+		table.addAirport(a);
+	}
+
+	/**
+	 * Schedules a flight in a running simulation
+	 */
+	public void addFlight(Flight f) {
+		schedule(table.addFlight(f));
+		paths.update(table);
+	}
+
+	private void schedule(int row) {
+		table.setDepartureTime(row, table.getStartTime(row));
+		table.setLandingTime(row, table.getStartTime(row));
+		departures.add(table.getStartTime(row), row);
+	}
+
+	/**
+	 * @return true if the flight is scheduled to be in the air at the given time
+	 */
+	public boolean inInterval(int row, long now) {
+		long start = table.getStartTime(row);
+		return now >= start && now <= start + table.getDuration(row);
+	}
+
+	/**
+	 * Processes the simulation at the given time
+	 * @param now Simulation time in minutes
+	 */
+	public void tick(long now) {
+		/*
+		 * Deals with the Flight queuing of each airport that has waiting
+		 * flights, and dispatches them from the queue while a runway is free.
+		 */
+		for (int i = queued.nextSetBit(0); i >= 0; i = queued.nextSetBit(i + 1)) {
+			RunwayScheduler d = table.getAirport(i).getDepartures();
+			while (d.getWaitingCount() != 0 && d.isRunwayFree(now)) {
+				waiting--;
+				// The flight departs now, which may be later than the slot it was told
+				int row = d.poll();
+				table.setDepartureTime(row, now);
+				depart(d, row, now);
+			}
+			if (d.getWaitingCount() == 0) queued.clear(i);
+		}
+
+		// Lands the holding flights of each airport while a runway is free
+		for (int i = holdingAt.nextSetBit(0); i >= 0; i = holdingAt.nextSetBit(i + 1)) {
+			RunwayScheduler a = table.getAirport(i).getArrivals();
+			while (a.getWaitingCount() != 0 && a.isRunwayFree(now)) {
+				holding--;
+				// The flight lands now, which may be later than the slot it was told
+				int row = a.poll();
+				table.setLandingTime(row, now);
+				land(a, row, now);
+			}
+			if (a.getWaitingCount() == 0) holdingAt.clear(i);
+		}
+
+		/*
+		 * Takes the flights whose start time has come from the departure
+		 * queue, and either dispatches them instantly or adds them to the
+		 * airport's queue to wait until they can
+		 */
+		int row;
+		while ((row = departures.pollDue(now)) >= 0) {
+			if (inInterval(row, now)) {
+				int airport = table.getStartAirport(row);
+				RunwayScheduler start = table.getAirport(airport).getDepartures();
+
+				// If no flights in queue, dispatch
+				if (start.canUseNow(now)) {
+					depart(start, row, now);
+				}
+
+				// Otherwise reschedule the flight and add it to the queue
+				else {
+					table.setDepartureTime(row, start.enqueue(row));
+					queued.set(airport);
+					waiting++;
+					listener.delayed(table, row, now);
+				}
+			}
+		}
+
+		/*
+		 * Takes the flights that have reached their destination, and either
+		 * lands them or lets them hold until a runway is free
+		 */
+		while ((row = arrivals.pollBefore(now)) >= 0) {
+			int airport = table.getEndAirport(row);
+			RunwayScheduler end = table.getAirport(airport).getArrivals();
+			if (end.canUseNow(now)) {
+				land(end, row, now);
+			} else {
+				table.setLandingTime(row, end.enqueue(row));
+				holdingAt.set(airport);
+				holding++;
+				listener.holding(table, row, now);
+			}
+		}
+
+		if (conflicts != null) conflicts.detect(table, paths, airborne, airborneCount, now, listener);
+	}
+
+	private void depart(RunwayScheduler d, int row, long now) {
+		arrivals.add(table.getArrivalTime(row), row);
+		addAirborne(row);
+		d.use(now);
+		listener.departed(table, row, now);
+	}
+
+	private void land(RunwayScheduler a, int row, long now) {
+		removeAirborne(row);
+		a.use(now);
+		listener.arrived(table, row, now);
+	}
+
+	private void addAirborne(int row) {
+		if (airborneIndex.length < table.size()) {
+			int old = airborneIndex.length;
+			airborneIndex = Arrays.copyOf(airborneIndex, Math.max(table.size(), old * 2));
+			Arrays.fill(airborneIndex, old, airborneIndex.length, -1);
+		}
+		if (airborneCount == airborne.length) {
+			airborne = Arrays.copyOf(airborne, airborneCount * 2);
+		}
+		airborneIndex[row] = airborneCount;
+		airborne[airborneCount++] = row;
+	}
+
+	private void removeAirborne(int row) {
+		int i = airborneIndex[row];
+		int last = airborne[--airborneCount];
+		airborne[i] = last;
+		airborneIndex[last] = i;
+		airborneIndex[row] = -1;
+	}
+
+	/**
+	 * @return a frame of the flights that are in the air now
+	 * @param now Simulation time of the last tick in minutes
+	 */
+	public SimulationFrame snapshot(long now) {
+		int count = airborneCount;
+		Flight[] flights = new Flight[count];
+		boolean[] conflict = new boolean[count];
+		float[] x0 = new float[count], y0 = new float[count], dx = new float[count], dy = new float[count];
+		for (int i = 0; i < count; i++) {
+			int row = airborne[i];
+			flights[i] = table.getFlight(row);
+			conflict[i] = conflicts != null && conflicts.isInConflict(row);
+			place(row, now);
+			x0[i] = placedX[row];
+			y0[i] = placedY[row];
+			place(row, now + step);
+			float lon = placedX[row] - x0[i];
+			// The shorter way around, for paths crossing the antimeridian
+			if (lon > 180) lon -= 360;
+			else if (lon < -180) lon += 360;
+			dx[i] = lon;
+			dy[i] = placedY[row] - y0[i];
+		}
+		return new SimulationFrame(flights, conflict, x0, y0, dx, dy, now, step);
+	}
+
+	/**
+	 * Computes the map position of the row at the given time, unless it already was
+	 */
+	private void place(int row, long time) {
+		if (placedAt.length < table.size()) {
+			int old = placedAt.length;
+			int n = Math.max(table.size(), old * 2);
+			placedAt = Arrays.copyOf(placedAt, n);
+			Arrays.fill(placedAt, old, n, Long.MIN_VALUE);
+			placedX = Arrays.copyOf(placedX, n);
+			placedY = Arrays.copyOf(placedY, n);
+		}
+		if (placedAt[row] == time) return;
+		double progress = (double) (time - table.getDepartureTime(row)) / table.getDuration(row);
+		if (progress < 0) progress = 0;
+		else if (progress > 1) progress = 1;
+		paths.position(row, progress, placedX, placedY, row);
+		placedAt[row] = time;
+	}
+
+	/**
+	 * @return true if no flight is scheduled, waiting, holding or in the air anymore
+	 */
+	public boolean isFinished() {
+		return departures.isEmpty() && arrivals.isEmpty() && waiting == 0 && holding == 0;
+	}
+
+	/**
+	 * Runs the whole schedule without waiting between ticks
+	 * @return the simulation time at which the last flight arrived
+	 */
+	public long runToEnd() {
+		long now = 0;
+		while (true) {
+			tick(now);
+			if (isFinished()) return now;
+			now += step;
+		}
+	}
+
+}
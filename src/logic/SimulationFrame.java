@@ -0,0 +1,93 @@
+package logic;
+
+import data.model.Flight;
+
+/**
+ * This class is a picture of the flights in the air after a tick, which the simulation
+ * thread hands over to the renderer through a volatile reference.
+ *
+ * <p> A frame is never changed after it is created, so the renderer can use it while the
+ * simulation goes on with the next ticks, without either of them waiting for the other.
+ * It holds the positions of the flights on their great circles at the frame's tick and at
+ * the next one, which the engine computes once per tick. The renderer moves the flights
+ * in a straight line between the two, which over a step of a few minutes is as good as
+ * the great circle.
+ *
+ * <p> The values are kept in one array per value, as the PositionKernel expects them.
+ */
+public final class SimulationFrame {
+
+	public static final SimulationFrame EMPTY = new SimulationFrame(new Flight[0], new boolean[0],
+			new float[0], new float[0], new float[0], new float[0], 0, SimulationEngine.SIM_STEP);
+
+	private static final PositionKernel KERNEL = PositionKernel.load();
+
+	private final long time;
+	private final int step;
+	private final Flight[] flights;
+	private final boolean[] conflict;
+	// Positions at the tick, and their change until the next tick, in degrees
+	private final float[] x0, y0, dx, dy;
+
+	/**
+	 * @param flights Flights in the air
+	 * @param conflict For each flight, true if it was in conflict on the tick
+	 * @param x0 Longitudes at the tick
+	 * @param y0 Latitudes at the tick
+	 * @param dx Change of the longitudes until the next tick, between -180 and 180
+	 * @param dy Change of the latitudes until the next tick
+	 * @param time Simulation time of the tick in minutes
+	 * @param step Simulation minutes until the next tick
+	 */
+	SimulationFrame(Flight[] flights, boolean[] conflict, float[] x0, float[] y0, float[] dx, float[] dy,
+			long time, int step) {
+		this.flights = flights;
+		this.conflict = conflict;
+		this.x0 = x0;
+		this.y0 = y0;
+		this.dx = dx;
+		this.dy = dy;
+		this.time = time;
+		this.step = step;
+	}
+
+	/**
+	 * @return the simulation time of the tick in minutes
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * @return the number of flights in the air
+	 */
+	public int size() {
+		return flights.length;
+	}
+
+	public Flight getFlight(int i) {
+		return flights[i];
+	}
+
+	/**
+	 * @return true if the flight was closer to another one than the separation on the tick
+	 */
+	public boolean isInConflict(int i) {
+		return conflict[i];
+	}
+
+	/**
+	 * Moves the flights between their positions at this tick and the next one, all of them
+	 * in one batch, with a multiply-add per coordinate
+	 * @param now Simulation time in minutes, usually between this tick and the next one
+	 * @param x Array the x coordinates on the map grid are written to, at least size() long
+	 * @param y Array the y coordinates on the map grid are written to, at least size() long
+	 */
+	public void positions(double now, float[] x, float[] y) {
+		double f = (now - time) / step;
+		if (f < 0) f = 0;
+		else if (f > 1) f = 1;
+		KERNEL.positions(x0, y0, dx, dy, 0, flights.length, (float) f, x, y);
+	}
+
+}
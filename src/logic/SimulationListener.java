@@ -0,0 +1,34 @@
+package logic;
+
+import data.FlightTable;
+
+/**
+ * This interface is notified by the SimulationEngine about the events of a simulation.
+ * Flights are identified by their row in the engine's FlightTable, and all times are
+ * simulation times in minutes.
+ */
+public interface SimulationListener {
+
+	void departed(FlightTable table, int row, long time);
+
+	/**
+	 * The flight waits in its airport's queue, its departure time is set to the
+	 * time it was rescheduled to
+	 */
+	void delayed(FlightTable table, int row, long time);
+
+	void arrived(FlightTable table, int row, long time);
+
+	/**
+	 * The flight reached its destination while the runways were busy and holds over it,
+	 * its landing time is set to the time it is expected to land at
+	 */
+	default void holding(FlightTable table, int row, long time) {}
+
+	/**
+	 * Two flights in the air came closer than the separation, reported once until they
+	 * are apart again. Only called when the engine checks for conflicts, row is lower than other.
+	 */
+	default void conflict(FlightTable table, int row, int other, long time) {}
+
+}
@@ -0,0 +1,93 @@
+package logic;
+
+import java.util.Arrays;
+
+/**
+ * This class is a priority queue of flight rows ordered by a time in minutes, such as
+ * their departure or arrival time, and by row for equal times. Times and rows are kept
+ * in a binary heap of two primitive arrays, so adding and taking out a flight is O(log n)
+ * without creating objects.
+ */
+public class TimeQueue {
+
+	private long[] times = new long[16];
+	private int[] rows = new int[16];
+	private int size;
+
+	private boolean before(long time, int row, int i) {
+		return time < times[i] || (time == times[i] && row < rows[i]);
+	}
+
+	public void add(long time, int row) {
+		if (size == times.length) {
+			times = Arrays.copyOf(times, size * 2);
+			rows = Arrays.copyOf(rows, size * 2);
+		}
+		int i = size++;
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (!before(time, row, parent)) break;
+			times[i] = times[parent];
+			rows[i] = rows[parent];
+			i = parent;
+		}
+		times[i] = time;
+		rows[i] = row;
+	}
+
+	/**
+	 * @return the time of the first flight, or Long.MAX_VALUE if the queue is empty
+	 */
+	public long peekTime() {
+		if (size == 0) return Long.MAX_VALUE;
+		return times[0];
+	}
+
+	/**
+	 * @return the row of the first flight, which is taken out of the queue
+	 */
+	public int poll() {
+		int row = rows[0];
+		size--;
+		long lastTime = times[size];
+		int lastRow = rows[size];
+		int i = 0;
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= size) break;
+			if (child + 1 < size && before(times[child + 1], rows[child + 1], child)) child++;
+			if (!before(times[child], rows[child], size)) break;
+			times[i] = times[child];
+			rows[i] = rows[child];
+			i = child;
+		}
+		times[i] = lastTime;
+		rows[i] = lastRow;
+		return row;
+	}
+
+	/**
+	 * @return the row of the first flight whose time is not after now, or -1 if there is none
+	 */
+	public int pollDue(long now) {
+		if (size == 0 || peekTime() > now) return -1;
+		return poll();
+	}
+
+	/**
+	 * @return the row of the first flight whose time is before now, or -1 if there is none
+	 */
+	public int pollBefore(long now) {
+		if (size == 0 || peekTime() >= now) return -1;
+		return poll();
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+}